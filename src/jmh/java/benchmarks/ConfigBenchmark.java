@@ -0,0 +1,36 @@
+package benchmarks;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import constants.Constant;
+
+/**
+ * Loading config.properties the way TestNGBase.initialiseBrowser does before every test.
+ */
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConfigBenchmark {
+
+	@Benchmark
+	public Properties loadConfig() throws IOException {
+		Properties prop = new Properties();
+		try (FileInputStream f = new FileInputStream(Constant.CONFIGFILE)) {
+			prop.load(f);
+		}
+		return prop;
+	}
+}
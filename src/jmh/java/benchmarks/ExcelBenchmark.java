@@ -0,0 +1,41 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import constants.Constant;
+import utilities.ExcelUtility;
+
+/**
+ * ExcelUtility.getStringData as the tests call it, once per value. Cold is the first call of a
+ * fresh JVM, with class loading and an unwarmed POI; warm is the steady state after warmup.
+ */
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExcelBenchmark {
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Fork(10)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	public String cold() throws IOException {
+		return ExcelUtility.getStringData(1, 0, Constant.SHEETNAME);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 3, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public String warm() throws IOException {
+		return ExcelUtility.getStringData(1, 0, Constant.SHEETNAME);
+	}
+}
@@ -0,0 +1,208 @@
+package benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * FakeWebDriver answers every WebDriver call in memory, so the framework code around the driver
+ * can be measured without a browser. Elements accept clicks and keys and report themselves as
+ * displayed and enabled; screenshots return the payload set by the benchmark.
+ */
+public class FakeWebDriver implements WebDriver, TakesScreenshot {
+
+	private volatile String currentUrl = "http://127.0.0.1/admin/login";
+	private volatile byte[] screenshot = new byte[0];
+
+	public void setScreenshot(byte[] screenshot) {
+		this.screenshot = screenshot;
+	}
+
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) {
+		return target.convertFromPngBytes(screenshot);
+	}
+
+	@Override
+	public void get(String url) {
+		currentUrl = url;
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		return currentUrl;
+	}
+
+	@Override
+	public String getTitle() {
+		return "Fake";
+	}
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		return List.of(new FakeWebElement(by));
+	}
+
+	@Override
+	public WebElement findElement(By by) {
+		return new FakeWebElement(by);
+	}
+
+	@Override
+	public String getPageSource() {
+		return "<html><body></body></html>";
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public void quit() {
+	}
+
+	@Override
+	public Set<String> getWindowHandles() {
+		return Set.of("fake");
+	}
+
+	@Override
+	public String getWindowHandle() {
+		return "fake";
+	}
+
+	@Override
+	public TargetLocator switchTo() {
+		return unsupported(TargetLocator.class);
+	}
+
+	@Override
+	public Navigation navigate() {
+		return unsupported(Navigation.class);
+	}
+
+	@Override
+	public Options manage() {
+		return unsupported(Options.class);
+	}
+
+	//Nothing measured here needs these; a call fails loudly instead of returning a wrong answer
+	private static <T> T unsupported(Class<T> type) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+			throw new UnsupportedOperationException("FakeWebDriver does not support " + type.getSimpleName() + "."
+					+ method.getName());
+		}));
+	}
+
+	/**
+	 * An element that is always there.
+	 */
+	static final class FakeWebElement implements WebElement {
+		private final By by;
+		private final StringBuilder value = new StringBuilder();
+
+		FakeWebElement(By by) {
+			this.by = by;
+		}
+
+		@Override
+		public void click() {
+		}
+
+		@Override
+		public void submit() {
+		}
+
+		@Override
+		public void sendKeys(CharSequence... keysToSend) {
+			for (CharSequence keys : keysToSend) {
+				value.append(keys);
+			}
+		}
+
+		@Override
+		public void clear() {
+			value.setLength(0);
+		}
+
+		@Override
+		public String getTagName() {
+			return "input";
+		}
+
+		@Override
+		public String getAttribute(String name) {
+			return "value".equals(name) ? value.toString() : null;
+		}
+
+		@Override
+		public boolean isSelected() {
+			return false;
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return true;
+		}
+
+		@Override
+		public String getText() {
+			return value.toString();
+		}
+
+		@Override
+		public List<WebElement> findElements(By by) {
+			return Collections.singletonList(new FakeWebElement(by));
+		}
+
+		@Override
+		public WebElement findElement(By by) {
+			return new FakeWebElement(by);
+		}
+
+		@Override
+		public boolean isDisplayed() {
+			return true;
+		}
+
+		@Override
+		public Point getLocation() {
+			return new Point(0, 0);
+		}
+
+		@Override
+		public Dimension getSize() {
+			return new Dimension(100, 20);
+		}
+
+		@Override
+		public Rectangle getRect() {
+			return new Rectangle(getLocation(), getSize());
+		}
+
+		@Override
+		public String getCssValue(String propertyName) {
+			return "";
+		}
+
+		@Override
+		public <X> X getScreenshotAs(OutputType<X> target) {
+			return target.convertFromPngBytes(new byte[0]);
+		}
+
+		@Override
+		public String toString() {
+			return "FakeWebElement " + by;
+		}
+	}
+}
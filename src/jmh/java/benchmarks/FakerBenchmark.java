@@ -0,0 +1,50 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utilities.FakerUtility;
+
+/**
+ * FakerUtility construction, which AdminTest pays per test, and generation from a shared instance.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FakerBenchmark {
+
+	private FakerUtility faker;
+
+	@Setup
+	public void setUp() {
+		faker = new FakerUtility();
+	}
+
+	@Benchmark
+	public FakerUtility construct() {
+		return new FakerUtility();
+	}
+
+	@Benchmark
+	public String userName() {
+		return faker.createRandomUserName();
+	}
+
+	@Benchmark
+	public String password() {
+		return faker.createRandomPassword();
+	}
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pages.HomePage;
+import pages.LoginPage;
+import pages.NewsPage;
+import utilities.FlightRecorder;
+
+/**
+ * Page object construction through BasePage and PageFactory.initElements, and the framework cost
+ * of one page action on top of the driver call, with and without a FlightRecorder recording.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PageBenchmark {
+
+	private final FakeWebDriver driver = new FakeWebDriver();
+	private LoginPage loginPage;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		loginPage = new LoginPage(driver);
+	}
+
+	@TearDown(Level.Iteration)
+	public void stopRecording() {
+		FlightRecorder.stop();
+	}
+
+	@Benchmark
+	public LoginPage constructLoginPage() {
+		return new LoginPage(driver);
+	}
+
+	@Benchmark
+	public HomePage constructHomePage() {
+		return new HomePage(driver);
+	}
+
+	@Benchmark
+	public NewsPage constructNewsPage() {
+		return new NewsPage(driver);
+	}
+
+	@Benchmark
+	public LoginPage enterUsername() {
+		return loginPage.enterusername("admin");
+	}
+
+	@Benchmark
+	public LoginPage enterUsernameRecorded() {
+		if (FlightRecorder.currentTestName() == null) {
+			FlightRecorder.start(driver, "benchmark");
+		}
+		return loginPage.enterusername("admin");
+	}
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reportgeneration.ReportPublisher;
+import reportgeneration.TestEvent;
+import utilities.ExtentReportUtility;
+
+/**
+ * Sustained throughput of the Listener's report path, in tests per millisecond: test threads
+ * publish the started and passed events of a batch of tests, then wait until the writer thread
+ * has them in the results file. Publishing alone is not measured, as the unbounded queue would
+ * only grow. Runs from 1 and from 8 threads; the results go to a shard file removed afterwards.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Dshard.id=jmh")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+public class ReportEventBenchmark {
+
+	private static final int BATCH = 100;
+
+	private final ReportPublisher publisher = ReportPublisher.getInstance();
+	private final AtomicLong testIds = new AtomicLong();
+
+	@TearDown(Level.Trial)
+	public void removeResults() throws Exception {
+		Files.deleteIfExists(Paths.get(ExtentReportUtility.RESULTSFILE));
+	}
+
+	@Benchmark
+	@Threads(1)
+	@OperationsPerInvocation(BATCH)
+	public boolean uncontended() {
+		return publishBatch();
+	}
+
+	@Benchmark
+	@Threads(8)
+	@OperationsPerInvocation(BATCH)
+	public boolean contended() {
+		return publishBatch();
+	}
+
+	private boolean publishBatch() {
+		for (int i = 0; i < BATCH; i++) {
+			long testId = testIds.incrementAndGet();
+			publisher.publish(TestEvent.started(testId, ReportEventBenchmark.class.getName(), "benchmark", "No description provided."));
+			publisher.publish(TestEvent.passed(testId));
+		}
+		return publisher.awaitWritten(Duration.ofMinutes(1));
+	}
+}
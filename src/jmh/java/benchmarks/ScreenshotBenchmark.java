@@ -0,0 +1,134 @@
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openqa.selenium.OutputType;
+
+import utilities.ScreenshotStore;
+
+/**
+ * Screenshot handling with synthetic PNG payloads: the capture through the driver interface, and
+ * ScreenshotStore for an identical screenshot (deduplicated), one with a small changed region
+ * (stored as a diff) and an entirely new one (stored in full). The store lives in a temporary
+ * folder, not in OutputScreenShot.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScreenshotBenchmark {
+
+	@Param({ "640x400", "1920x1080" })
+	public String size;
+
+	private final FakeWebDriver driver = new FakeWebDriver();
+	private final Random random = new Random(42);
+	private Path folder;
+	private ScreenshotStore store;
+	private BufferedImage image;
+	private byte[] png;
+	private byte[] changedPng;
+	private byte[] newPng;
+	private int invocation;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		String[] dimensions = size.split("x");
+		image = new BufferedImage(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]),
+				BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < image.getHeight(); y += 8) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				image.setRGB(x, y, random.nextInt());//some texture, so PNG does not compress it to nothing
+			}
+		}
+		png = encode(image);
+		driver.setScreenshot(png);
+		folder = Files.createTempDirectory("screenshot-benchmark");
+		store = new ScreenshotStore(folder.toFile(), Duration.ofDays(1), Long.MAX_VALUE);
+		store.store(png, "base");
+	}
+
+	//Every invocation stores an image the store has not seen yet; encoding is not part of the measurement
+	@Setup(Level.Invocation)
+	public void nextImages() throws IOException {
+		invocation++;
+		BufferedImage changed = copy(image);
+		changed.setRGB(invocation % changed.getWidth(), 0, invocation);
+		changedPng = encode(changed);
+		BufferedImage fresh = copy(image);
+		for (int x = 0; x < fresh.getWidth(); x++) {
+			fresh.setRGB(x, fresh.getHeight() / 2, invocation * 31 + x);
+		}
+		for (int y = 0; y < fresh.getHeight(); y++) {
+			fresh.setRGB(fresh.getWidth() / 2, y, invocation * 17 + y);
+		}
+		newPng = encode(fresh);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(folder)) {
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	@Benchmark
+	public byte[] capture() {
+		return driver.getScreenshotAs(OutputType.BYTES);
+	}
+
+	@Benchmark
+	public String storeIdentical() throws IOException {
+		return store.store(png, "identical");
+	}
+
+	@Benchmark
+	public String storeChangedRegion() throws IOException {
+		return store.store(changedPng, "changed");
+	}
+
+	@Benchmark
+	public String storeNew() throws IOException {
+		return store.store(newPng, "new");
+	}
+
+	private static BufferedImage copy(BufferedImage source) {
+		BufferedImage copy = new BufferedImage(source.getWidth(), source.getHeight(), source.getType());
+		copy.setData(source.getData());
+		return copy;
+	}
+
+	private static byte[] encode(BufferedImage image) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
@@ -1,11 +1,65 @@
 	package constants;
 
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
 public class Constant {
 	//System.getProperty: Returns the path of eclipse directory
-public static final String TESTDATAFILE = System.getProperty("user.dir")+"\\src\\test\\resources\\TestData.xlsx";
+public static final String TESTDATAFILE = System.getProperty("user.dir") + File.separator + "src" + File.separator + "test" + File.separator + "resources" + File.separator + "TestData.xlsx";
 public static final String SHEETNAME = "loginsheet";
 public static final String ADMINNAME = "Staff";	
-public static final String CONFIGFILE=System.getProperty("user.dir")+"\\src\\main\\resources\\config.properties";
+public static final String CONFIGFILE=System.getProperty("user.dir") + File.separator + "src" + File.separator + "main" + File.separator + "resources" + File.separator + "config.properties";
+public static final String SCREENSHOTFOLDER = System.getProperty("user.dir") + File.separator + "OutputScreenShot";
+//Retention limits of the screenshot store, overridable with -Dscreenshot.retention.days / -Dscreenshot.store.maxmb
+public static final int SCREENSHOTRETENTIONDAYS = Integer.getInteger("screenshot.retention.days", 14);
+public static final int SCREENSHOTSTOREMAXMB = Integer.getInteger("screenshot.store.maxmb", 100);
+//Flight recorder: number of steps kept per test and optional per-step captures
+public static final int FLIGHTRECORDERSIZE = Integer.getInteger("flightrecorder.size", 50);
+public static final boolean FLIGHTRECORDERDOM = Boolean.getBoolean("flightrecorder.dom");
+public static final boolean FLIGHTRECORDERSCREENSHOTS = Boolean.getBoolean("flightrecorder.screenshots");
+//ITestResult attribute holding the recorded steps of a failed test
+public static final String FLIGHTRECORDERATTRIBUTE = "flightRecorder";
+//Command trace of every test: off, failed (files kept for failed tests only) or all; one compressed binary file per test
+public static final String TRACEMODE = System.getProperty("trace.mode", "failed");
+public static final String TRACEFOLDER = System.getProperty("user.dir") + File.separator + "traces";
+//ITestResult attribute holding the trace file of a failed test
+public static final String TRACEATTRIBUTE = "trace";
+//ITestResult attribute holding the log of a failed test, kept in memory while it ran
+public static final String TESTLOGATTRIBUTE = "testLog";
+//JFR recording of the run with the bundled jfr/gaframework.jfc profile, enabled with -Djfr.record=true
+public static final boolean JFRRECORDING = Boolean.getBoolean("jfr.record");
+public static final String JFRFOLDER = System.getProperty("user.dir") + File.separator + "jfr-recordings";
+//Navigation timings of every measured page, appended across runs
+public static final String PAGEPERFORMANCEFILE = System.getProperty("user.dir") + File.separator + "performance-results" + File.separator + "page-timings.csv";
+//Identifies this run in files kept across runs; pass the same -Drun.id to JVMs that belong to one run
+public static final String RUNID = System.getProperty("run.id", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss")));
+//Per-test results of every run, and how many earlier runs the regression detector compares against
+public static final String RUNHISTORYFILE = System.getProperty("user.dir") + File.separator + "run-history" + File.separator + "history.tsv";
+public static final int RUNHISTORYWINDOW = Integer.getInteger("history.window", 20);
+//Registry of the entities created in the application by tests; orphans of crashed runs are deleted after the TTL
+public static final String TESTDATAREGISTRY = System.getProperty("user.dir") + File.separator + "test-data" + File.separator + "registry.tsv";
+public static final int TESTDATAORPHANTTLHOURS = Integer.getInteger("testdata.orphan.ttl.hours", 24);
+public static final int TESTDATACLEANUPTHREADS = Integer.getInteger("testdata.cleanup.threads", 4);
+//Shard of a split run, e.g. the Surefire fork number or CI node index; each shard writes its own results file
+public static final String SHARDID = System.getProperty("shard.id", "");
+//Worker JVMs of the farm.WorkerFarm, and the folder holding their console logs
+public static final int FARMWORKERS = Integer.getInteger("farm.workers", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+public static final String FARMFOLDER = System.getProperty("user.dir") + File.separator + "farm-workers";
+//Step latencies of load.LoadRunner runs, one CSV per run id
+public static final String LOADRESULTSFOLDER = System.getProperty("user.dir") + File.separator + "load-results";
+//Registry files of the driver and browser processes each JVM started, swept when their JVM is gone
+public static final String PROCESSREGISTRYFOLDER = System.getProperty("user.dir") + File.separator + "browser-processes";
+//Versioned cache of driver binaries shared by every run on the machine; with -Ddriver.offline=true a cache miss fails instead of asking Selenium Manager
+public static final String DRIVERCACHEFOLDER = System.getProperty("driver.cache", System.getProperty("user.home") + File.separator + ".cache" + File.separator + "gaframework" + File.separator + "drivers");
+public static final boolean DRIVEROFFLINE = Boolean.getBoolean("driver.offline");
+//Chrome sessions share one long-lived chromedriver instead of starting one per test; -Ddriver.service.shared=false to disable
+public static final boolean SHAREDDRIVERSERVICE = Boolean.parseBoolean(System.getProperty("driver.service.shared", "true"));
+//Runs the suite against the local stub application instead of the base URL in config.properties, on -Dstub.port or any free port
+public static final boolean STUBSERVER = Boolean.getBoolean("stub");
+public static final int STUBPORT = Integer.getInteger("stub.port", 0);
+//ITestResult attribute holding the pending screenshot write of a failed test
+public static final String SCREENSHOTATTRIBUTE = "screenshot";
 
 }
 
@@ -0,0 +1,19 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Shutdown of a browser session in TestNGBase.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+@Name("gaframework.DriverQuit")
+@Label("Driver Quit")
+@Category({ "GAFramework", "Driver" })
+@Description("Shutdown of a browser session in TestNGBase.")
+public class DriverQuitEvent extends FrameworkEvent {
+}
@@ -0,0 +1,22 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Launch of a browser session in TestNGBase.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+@Name("gaframework.DriverStart")
+@Label("Driver Start")
+@Category({ "GAFramework", "Driver" })
+@Description("Launch of a browser session in TestNGBase.")
+public class DriverStartEvent extends FrameworkEvent {
+
+	@Label("Browser")
+	public String browser;
+}
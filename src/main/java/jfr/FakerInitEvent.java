@@ -0,0 +1,19 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Construction of the Faker instance in FakerUtility.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+@Name("gaframework.FakerInit")
+@Label("Faker Init")
+@Category({ "GAFramework", "Test Data" })
+@Description("Construction of the Faker instance in FakerUtility.")
+public class FakerInitEvent extends FrameworkEvent {
+}
@@ -0,0 +1,24 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * FrameworkEvent is the base of all JFR events emitted by the framework.
+ * JFR records the thread and the duration (between begin() and commit()) of every event
+ * itself; subclasses add the name of the test the work was done for.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+@Category("GAFramework")
+@StackTrace(false)
+public abstract class FrameworkEvent extends jdk.jfr.Event {
+
+	/**
+	 * Name of the test the event belongs to, empty for suite-level work.
+	 */
+	@Label("Test Name")
+	public String testName;
+}
@@ -0,0 +1,97 @@
+package jfr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import constants.Constant;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * FrameworkRecording starts a JFR recording of the whole run when -Djfr.record=true is set.
+ * The bundled profile jfr/gaframework.jfc is applied on top of the JDK "default" profile, so
+ * framework events appear next to GC, CPU and allocation data in JDK Mission Control.
+ * The recording is written to the jfr-recordings folder on stop or, at the latest, on JVM exit.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class FrameworkRecording {
+
+	private static final Logger LOG = LogManager.getLogger(FrameworkRecording.class);
+	private static final String SETTINGSRESOURCE = "/jfr/gaframework.jfc";
+	private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("dd_MM_yyyy_HH_mm_ss");
+
+	private static Recording recording;
+
+	/**
+	 * Starts the recording if it is enabled and not already running.
+	 *
+	 * @return true if a recording is running after the call
+	 */
+	public static synchronized boolean start() {
+		if (!Constant.JFRRECORDING) {
+			return false;
+		}
+		if (recording != null) {
+			return true;
+		}
+		try {
+			Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+			settings.putAll(bundledSettings());
+			Path destination = Path.of(Constant.JFRFOLDER, "run_" + LocalDateTime.now().format(TIMESTAMP) + ".jfr");
+			Files.createDirectories(destination.getParent());
+			Recording started = new Recording(settings);
+			started.setName("GAFramework");
+			started.setToDisk(true);
+			started.setDumpOnExit(true);
+			started.setDestination(destination);
+			started.start();
+			recording = started;
+			return true;
+		} catch (IOException | ParseException e) {
+			LOG.warn("JFR recording could not be started: {}", e.toString());
+			return false;
+		}
+	}
+
+	/**
+	 * Stops the recording and writes it to its destination.
+	 *
+	 * @return The written recording, or null if no recording was running
+	 */
+	public static synchronized Path stop() {
+		if (recording == null) {
+			return null;
+		}
+		Path destination = recording.getDestination();
+		recording.stop();
+		recording.close();
+		recording = null;
+		return destination;
+	}
+
+	private static Map<String, String> bundledSettings() throws IOException, ParseException {
+		try (InputStream stream = FrameworkRecording.class.getResourceAsStream(SETTINGSRESOURCE)) {
+			if (stream == null) {
+				throw new IOException(SETTINGSRESOURCE + " not found on the classpath");
+			}
+			try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+				return Configuration.create(reader).getSettings();
+			}
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flush of the report by the Listener.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+@Name("gaframework.ReportFlush")
+@Label("Report Flush")
+@Category({ "GAFramework", "Report" })
+@Description("Flush of the report by the Listener.")
+public class ReportFlushEvent extends FrameworkEvent {
+}
@@ -0,0 +1,22 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Decision of the retry analyzer to run a failed test again.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+@Name("gaframework.Retry")
+@Label("Retry")
+@Category({ "GAFramework", "Retry" })
+@Description("Decision of the retry analyzer to run a failed test again.")
+public class RetryEvent extends FrameworkEvent {
+
+	@Label("Attempt")
+	public int attempt;
+}
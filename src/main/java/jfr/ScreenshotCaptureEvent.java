@@ -0,0 +1,24 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Capture of a screenshot from the browser in ScreenshotUtility.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+@Name("gaframework.ScreenshotCapture")
+@Label("Screenshot Capture")
+@Category({ "GAFramework", "Screenshot" })
+@Description("Capture of a screenshot from the browser in ScreenshotUtility.")
+public class ScreenshotCaptureEvent extends FrameworkEvent {
+
+	@Label("Size")
+	@DataAmount
+	public long size;
+}
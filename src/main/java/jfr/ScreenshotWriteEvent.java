@@ -0,0 +1,24 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Storage of a captured screenshot on the background writer pool.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+@Name("gaframework.ScreenshotWrite")
+@Label("Screenshot Write")
+@Category({ "GAFramework", "Screenshot" })
+@Description("Storage of a captured screenshot on the background writer pool.")
+public class ScreenshotWriteEvent extends FrameworkEvent {
+
+	@Label("Size")
+	@DataAmount
+	public long size;
+}
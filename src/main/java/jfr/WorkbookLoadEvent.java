@@ -0,0 +1,22 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Opening of the test data workbook in ExcelUtility.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+@Name("gaframework.WorkbookLoad")
+@Label("Workbook Load")
+@Category({ "GAFramework", "Test Data" })
+@Description("Opening of the test data workbook in ExcelUtility.")
+public class WorkbookLoadEvent extends FrameworkEvent {
+
+	@Label("Sheet")
+	public String sheet;
+}
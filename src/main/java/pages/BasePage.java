@@ -1,8 +1,11 @@
 package pages;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.PageFactory;
 
+import utilities.PagePerformanceUtility;
 import utilities.PageUtility;
 import utilities.WaitUtility;
 
@@ -15,6 +18,11 @@ import utilities.WaitUtility;
  */
 public class BasePage {
 
+    /**
+     * Logger shared by the page objects.
+     */
+    private static final Logger LOG = LogManager.getLogger(BasePage.class);
+
     /**
      * WebDriver instance for browser automation.
      */
@@ -30,6 +38,11 @@ public class BasePage {
      */
     protected PageUtility pageUtility;
 
+    /**
+     * PagePerformanceUtility instance for checking page load timings against their budgets.
+     */
+    protected PagePerformanceUtility pagePerformanceUtility;
+
     /**
      * Constructor for BasePage that initializes the WebDriver and utility instances.
      * PageFactory is initialized to support @FindBy annotations.
@@ -40,6 +53,8 @@ public class BasePage {
         this.driver = driver;
         this.waitUtility = new WaitUtility();
         this.pageUtility = new PageUtility();
+        this.pagePerformanceUtility = new PagePerformanceUtility();
         PageFactory.initElements(driver, this);
+        LOG.debug("On {}", getClass().getSimpleName());
     }
 }
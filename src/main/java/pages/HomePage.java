@@ -28,13 +28,13 @@ public class HomePage extends BasePage {
 	/**
 	 * Manage admin info link element.
 	 */
-	@FindBy(xpath = "//a[@href='https://groceryapp.uniqassosiates.com/admin/list-admin' and @class='small-box-footer']")
+	@FindBy(xpath = "//a[contains(@href,'/admin/list-admin') and @class='small-box-footer']")
 	private WebElement manageadmininfo;
 
 	/**
 	 * Manage news button element.
 	 */
-	@FindBy(xpath = "//a[@href='https://groceryapp.uniqassosiates.com/admin/list-news' and @class='small-box-footer']")
+	@FindBy(xpath = "//a[contains(@href,'/admin/list-news') and @class='small-box-footer']")
 	private WebElement managenewsbtn;
 
 	/**
@@ -67,6 +67,7 @@ public class HomePage extends BasePage {
 	public LoginPage logOut() {
 		waitUtility.waitUntilClickable(driver, logoutbtn);
 		pageUtility.clickOnElement(logoutbtn);
+		pagePerformanceUtility.capture(driver);
 		return new LoginPage(driver);
 	}
 
@@ -78,6 +79,7 @@ public class HomePage extends BasePage {
 	 */
 	public AdminPage adminInfo() {
 		pageUtility.clickOnElement(manageadmininfo);
+		pagePerformanceUtility.capture(driver);
 		return new AdminPage(driver);
 	}
 
@@ -89,6 +91,7 @@ public class HomePage extends BasePage {
 	 */
 	public NewsPage manageNews() {
 		pageUtility.clickOnElement(managenewsbtn);
+		pagePerformanceUtility.capture(driver);
 		return new NewsPage(driver);
 	}
 }
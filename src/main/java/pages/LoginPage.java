@@ -74,6 +74,7 @@ public class LoginPage extends BasePage {
 	public HomePage signIn() {
 		waitUtility.waitUntilClickable(driver, signin);
 		pageUtility.clickOnElement(signin);
+		pagePerformanceUtility.capture(driver);
 		return new HomePage(driver);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,265 @@
+package pages;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.openqa.selenium.WebDriver;
+
+import utilities.FlightRecorder;
+import utilities.PagePerformanceUtility;
+
+/**
+ * Navigator opens a page object by the cheapest route from the page the browser is on. The pages,
+ * their URLs and the clicks leading from one to another are declared once in a navigation graph.
+ * A page with a URL is opened with a single deep link, unless a route of clicks is just as short;
+ * when deep links are disabled (-Dnavigation.deeplinks=false) or the deep link does not land on
+ * the page, the shortest route of clicks is followed instead, from the landing page after sign-in
+ * if the current page has none. The page loads saved against the
+ * click route are counted for the report.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class Navigator {
+
+	private static final boolean DEEPLINKS = Boolean.parseBoolean(System.getProperty("navigation.deeplinks", "true"));
+
+	/**
+	 * The pages of the application and how the user gets from one to the next.
+	 */
+	private static final Graph GRAPH = new Graph()
+			.page(LoginPage.class, LoginPage::new, false, "/admin/login")
+			.page(HomePage.class, HomePage::new, true, "/admin/home", "/admin")
+			.page(NewsPage.class, NewsPage::new, true, "/admin/list-news", "/admin/news/index", "/admin/news/add")
+			.page(AdminPage.class, AdminPage::new, true, "/admin/list-admin")
+			.landing(HomePage.class)
+			.transition(LoginPage.class, HomePage.class, null)//signing in needs credentials, it is only part of the cost
+			.transition(HomePage.class, NewsPage.class, HomePage::manageNews)
+			.transition(HomePage.class, AdminPage.class, HomePage::adminInfo)
+			.transition(HomePage.class, LoginPage.class, HomePage::logOut)
+			.transition(NewsPage.class, HomePage.class, NewsPage::returntoHome);
+
+	private static final Map<Class<?>, long[]> STATISTICS = new LinkedHashMap<>();
+	private static final int REQUESTS = 0;
+	private static final int DEEPLINKED = 1;
+	private static final int CLICKS = 2;
+	private static final int SAVED = 3;
+
+	private final WebDriver driver;
+
+	/**
+	 * A page of the graph: how to create its page object and where it lives.
+	 */
+	private static final class Node {
+		final Function<WebDriver, ? extends BasePage> factory;
+		final boolean needsSession;
+		final List<String> paths;
+
+		Node(Function<WebDriver, ? extends BasePage> factory, boolean needsSession, List<String> paths) {
+			this.factory = factory;
+			this.needsSession = needsSession;
+			this.paths = paths;
+		}
+	}
+
+	/**
+	 * A click from one page to another; transitions without an action only count towards route costs.
+	 */
+	private static final class Transition {
+		final Class<? extends BasePage> to;
+		final Function<BasePage, BasePage> action;
+
+		Transition(Class<? extends BasePage> to, Function<BasePage, BasePage> action) {
+			this.to = to;
+			this.action = action;
+		}
+	}
+
+	/**
+	 * Declares the pages and their transitions.
+	 */
+	private static final class Graph {
+		final Map<Class<? extends BasePage>, Node> nodes = new LinkedHashMap<>();
+		final Map<Class<? extends BasePage>, List<Transition>> transitions = new HashMap<>();
+		Class<? extends BasePage> landing;
+
+		<P extends BasePage> Graph page(Class<P> page, Function<WebDriver, P> factory, boolean needsSession, String... paths) {
+			nodes.put(page, new Node(factory, needsSession, List.of(paths)));
+			return this;
+		}
+
+		//The page the application shows after signing in, where click routes start without a usable current page
+		Graph landing(Class<? extends BasePage> page) {
+			landing = page;
+			return this;
+		}
+
+		@SuppressWarnings("unchecked")
+		<F extends BasePage, T extends BasePage> Graph transition(Class<F> from, Class<T> to, Function<F, T> click) {
+			transitions.computeIfAbsent(from, page -> new ArrayList<>())
+					.add(new Transition(to, click == null ? null : page -> click.apply((F) page)));
+			return this;
+		}
+
+		//The page the path belongs to, or null for pages outside the graph
+		Class<? extends BasePage> pageAt(String path) {
+			for (Map.Entry<Class<? extends BasePage>, Node> node : nodes.entrySet()) {
+				if (node.getValue().paths.contains(path)) {
+					return node.getKey();
+				}
+			}
+			return null;
+		}
+
+		//Shortest route as the transitions to take, breadth first as every page load costs the same; null if none
+		List<Transition> route(Class<? extends BasePage> from, Class<? extends BasePage> to, boolean clickableOnly) {
+			Map<Class<? extends BasePage>, Transition> reachedBy = new HashMap<>();
+			Map<Class<? extends BasePage>, Class<? extends BasePage>> previous = new HashMap<>();
+			Deque<Class<? extends BasePage>> queue = new ArrayDeque<>(List.of(from));
+			previous.put(from, from);
+			while (!queue.isEmpty()) {
+				Class<? extends BasePage> page = queue.poll();
+				if (page.equals(to)) {
+					List<Transition> route = new ArrayList<>();
+					for (Class<? extends BasePage> step = to; !step.equals(from); step = previous.get(step)) {
+						route.add(reachedBy.get(step));
+					}
+					Collections.reverse(route);
+					return route;
+				}
+				for (Transition transition : transitions.getOrDefault(page, List.of())) {
+					if ((transition.action != null || !clickableOnly) && !previous.containsKey(transition.to)) {
+						previous.put(transition.to, page);
+						reachedBy.put(transition.to, transition);
+						queue.add(transition.to);
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Constructor for Navigator.
+	 *
+	 * @param driver The WebDriver instance, showing a page of the application
+	 */
+	public Navigator(WebDriver driver) {
+		this.driver = driver;
+	}
+
+	/**
+	 * Opens the page by the cheapest route from the current page.
+	 *
+	 * @param page The page object class to open
+	 * @return The page object of the opened page
+	 * @throws IllegalArgumentException If the page is not part of the navigation graph
+	 * @throws IllegalStateException    If no route leads to the page, e.g. from the login page without a session
+	 */
+	public <P extends BasePage> P open(Class<P> page) {
+		Node target = GRAPH.nodes.get(page);
+		if (target == null) {
+			throw new IllegalArgumentException(page.getSimpleName() + " is not part of the navigation graph");
+		}
+		URI current = URI.create(driver.getCurrentUrl());
+		FlightRecorder.navigated(current.toString());//read anyway, brings the recorder up to date after clicks
+		Class<? extends BasePage> from = GRAPH.pageAt(current.getPath());
+		List<Transition> clickRoute = from == null ? null : GRAPH.route(from, page, true);
+		List<Transition> fullRoute = from == null ? null : GRAPH.route(from, page, false);
+		if (clickRoute != null && clickRoute.isEmpty()) {
+			count(page, 0, 0, 0);//already there
+			return page.cast(target.factory.apply(driver));
+		}
+		boolean deepLink = DEEPLINKS && (clickRoute == null || clickRoute.size() > 1);
+		if (deepLink) {
+			String deepLinkUrl = current.resolve(target.paths.get(0)).toString();
+			driver.get(deepLinkUrl);
+			FlightRecorder.navigated(deepLinkUrl);
+			new PagePerformanceUtility().capture(driver);
+			if (target.paths.contains(URI.create(driver.getCurrentUrl()).getPath())) {
+				count(page, 1, 0, fullRoute == null ? 0 : fullRoute.size() - 1);
+				return page.cast(target.factory.apply(driver));
+			}
+			if (clickRoute == null) {
+				throw new IllegalStateException("Deep link to " + page.getSimpleName() + " landed on "
+						+ driver.getCurrentUrl() + (target.needsSession ? ", sign in first" : ""));
+			}
+			driver.navigate().back();//the session does not allow it, take the clicks from where we were
+		}
+		int loads = 0;
+		if (clickRoute == null) {
+			//e.g. on the login page with a session shared over HTTP: start from where signing in lands
+			String landingUrl = current.resolve(GRAPH.nodes.get(GRAPH.landing).paths.get(0)).toString();
+			driver.get(landingUrl);
+			FlightRecorder.navigated(landingUrl);
+			new PagePerformanceUtility().capture(driver);
+			from = GRAPH.pageAt(URI.create(driver.getCurrentUrl()).getPath());
+			clickRoute = from == null ? null : GRAPH.route(from, page, true);
+			if (clickRoute == null) {
+				throw new IllegalStateException("No route of clicks leads from " + current.getPath() + " to "
+						+ page.getSimpleName() + ", landed on " + driver.getCurrentUrl());
+			}
+			loads++;
+		}
+		BasePage onPage = GRAPH.nodes.get(from).factory.apply(driver);
+		for (Transition transition : clickRoute) {
+			onPage = transition.action.apply(onPage);
+		}
+		count(page, 0, loads + clickRoute.size(), 0);
+		return page.cast(onPage);
+	}
+
+	/**
+	 * Returns the navigations of the run per target page; the first row is the header.
+	 *
+	 * @return The summary table
+	 */
+	public static String[][] summaryTable() {
+		synchronized (STATISTICS) {
+			String[][] table = new String[STATISTICS.size() + 2][];
+			table[0] = new String[] { "Page", "Opened", "Deep links", "Click hops", "Page loads saved" };
+			long[] total = new long[4];
+			int row = 1;
+			for (Map.Entry<Class<?>, long[]> entry : STATISTICS.entrySet()) {
+				long[] counts = entry.getValue();
+				table[row++] = new String[] { entry.getKey().getSimpleName(), String.valueOf(counts[REQUESTS]),
+						String.valueOf(counts[DEEPLINKED]), String.valueOf(counts[CLICKS]), String.valueOf(counts[SAVED]) };
+				for (int i = 0; i < total.length; i++) {
+					total[i] += counts[i];
+				}
+			}
+			table[row] = new String[] { "Total", String.valueOf(total[REQUESTS]), String.valueOf(total[DEEPLINKED]),
+					String.valueOf(total[CLICKS]), String.valueOf(total[SAVED]) };
+			return table;
+		}
+	}
+
+	/**
+	 * Checks whether any page was opened through the Navigator in this run.
+	 *
+	 * @return true if nothing was recorded
+	 */
+	public static boolean isEmpty() {
+		synchronized (STATISTICS) {
+			return STATISTICS.isEmpty();
+		}
+	}
+
+	private static void count(Class<?> page, int deepLinks, int clicks, int saved) {
+		synchronized (STATISTICS) {
+			long[] counts = STATISTICS.computeIfAbsent(page, key -> new long[4]);
+			counts[REQUESTS]++;
+			counts[DEEPLINKED] += deepLinks;
+			counts[CLICKS] += clicks;
+			counts[SAVED] += saved;
+		}
+	}
+}
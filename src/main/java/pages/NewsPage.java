@@ -94,7 +94,18 @@ public class NewsPage extends BasePage {
 	 * @return NewsPage instance for method chaining
 	 */
 	public NewsPage newsText() {
-		pageUtility.sendDataToElement(newstxt, "Breaking");
+		return newsText("Breaking");
+	}
+
+	/**
+	 * Enters the given news text in the news textarea.
+	 * Uses method chaining to return the NewsPage instance.
+	 *
+	 * @param text The news text, unique to the run so that its clean-up deletes only this item
+	 * @return NewsPage instance for method chaining
+	 */
+	public NewsPage newsText(String text) {
+		pageUtility.sendDataToElement(newstxt, text);
 		return this;
 	}
 
@@ -151,6 +162,7 @@ public class NewsPage extends BasePage {
 	 */
 	public HomePage returntoHome() {
 		pageUtility.clickOnElement(homebtn);
+		pagePerformanceUtility.capture(driver);
 		return new HomePage(driver);
 	}
 
@@ -0,0 +1,272 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * ApiUtility prepares test data by posting the application's forms directly with
+ * java.net.http.HttpClient instead of clicking through them, so only the behaviour under test
+ * goes through the browser. It shares the session with the browser in either direction: it can
+ * take over the cookies of a logged-in browser, or log in itself and hand its cookies to the
+ * browser. The CSRF _token of the session is read from a form page before the first post.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class ApiUtility {
+
+	private static final Logger LOG = LogManager.getLogger(ApiUtility.class);
+	private static final Pattern TOKEN = Pattern.compile("name=['\"]_token['\"]\\s+value=['\"]([^'\"]+)['\"]");
+	private static final Pattern ROW = Pattern
+			.compile("<tr><td>([^<]*)</td>.*?<a href=['\"]([^'\"]*delete[^'\"]*)['\"]");
+	//The next-page link of a paginated list
+	private static final Pattern NEXTPAGE = Pattern.compile("<a[^>]*href=['\"]([^'\"]*[?&]page=\\d+)['\"][^>]*rel=['\"]next['\"]");
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	private final String baseUrl;
+	private final CookieManager cookies = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+	private final HttpClient client;
+	private String token;
+
+	/**
+	 * Creates a client with a session of its own; call {@link #login(String, String)} next.
+	 *
+	 * @param baseUrl Scheme, host and port of the application, e.g. http://127.0.0.1:8080
+	 */
+	public ApiUtility(String baseUrl) {
+		this.baseUrl = baseUrl;
+		this.client = HttpClient.newBuilder().cookieHandler(cookies).followRedirects(HttpClient.Redirect.NEVER)
+				.connectTimeout(TIMEOUT).build();
+	}
+
+	/**
+	 * Creates a client that continues the session of the browser, e.g. right after signing in.
+	 *
+	 * @param driver The WebDriver instance whose current page belongs to the application
+	 */
+	public ApiUtility(WebDriver driver) {
+		this(origin(driver.getCurrentUrl()));
+		for (Cookie cookie : driver.manage().getCookies()) {
+			HttpCookie httpCookie = new HttpCookie(cookie.getName(), cookie.getValue());
+			httpCookie.setPath(cookie.getPath() == null ? "/" : cookie.getPath());
+			httpCookie.setVersion(0);
+			cookies.getCookieStore().add(URI.create(baseUrl), httpCookie);
+		}
+	}
+
+	/**
+	 * Signs in through the login form.
+	 *
+	 * @param username The username
+	 * @param password The password
+	 * @return This instance for method chaining
+	 * @throws IllegalStateException If the credentials are rejected
+	 */
+	public ApiUtility login(String username, String password) {
+		token = token(get("/admin/login"));
+		HttpResponse<String> response = post("/admin/login", Map.of("username", username, "password", password));
+		String location = response.headers().firstValue("Location").orElse("");
+		if (location.endsWith("/admin/login")) {
+			throw new IllegalStateException("Login as " + username + " was rejected");
+		}
+		token = null;//read again from the signed-in session
+		return this;
+	}
+
+	/**
+	 * Copies the session cookies to the browser, which must be on a page of the application.
+	 * The next page the browser loads is in the session of this client.
+	 *
+	 * @param driver The WebDriver instance to hand the session to
+	 */
+	public void shareSessionWith(WebDriver driver) {
+		for (HttpCookie cookie : cookies.getCookieStore().get(URI.create(baseUrl))) {
+			driver.manage().addCookie(new Cookie.Builder(cookie.getName(), cookie.getValue())
+					.path(cookie.getPath() == null ? "/" : cookie.getPath()).isHttpOnly(cookie.isHttpOnly()).build());
+		}
+	}
+
+	/**
+	 * Creates a news item.
+	 *
+	 * @param text The news text
+	 */
+	public void createNews(String text) {
+		FlightRecorder.record("api createNews " + text, null);
+		post("/admin/news/add", Map.of("news", text));
+		TestDataTracker.register(TestDataTracker.NEWS, text);
+	}
+
+	/**
+	 * Deletes every news item with exactly one of these texts. Only the texts that were found and
+	 * deleted are marked as deleted in the {@link TestDataTracker}; the rest stay pending.
+	 *
+	 * @param texts The news texts
+	 * @return The texts whose news items were all deleted
+	 */
+	public Set<String> deleteNews(Collection<String> texts) {
+		FlightRecorder.record("api deleteNews " + texts, null);
+		Set<String> deleted = deleteRows("/admin/list-news", texts);
+		TestDataTracker.markDeleted(TestDataTracker.NEWS, deleted);
+		return deleted;
+	}
+
+	/**
+	 * Creates an admin user.
+	 *
+	 * @param username The username of the new user
+	 * @param password The password of the new user
+	 * @param userType The user type option value, e.g. "staff"
+	 */
+	public void createAdmin(String username, String password, String userType) {
+		FlightRecorder.record("api createAdmin " + username, null);
+		Map<String, String> form = new LinkedHashMap<>();
+		form.put("username", username);
+		form.put("password", password);
+		form.put("user_type", userType);
+		post("/admin/list-admin", form);
+		TestDataTracker.register(TestDataTracker.ADMIN, username);
+	}
+
+	/**
+	 * Deletes the admin users with these usernames. Only the usernames that were found and deleted
+	 * are marked as deleted in the {@link TestDataTracker}; the rest stay pending.
+	 *
+	 * @param usernames The usernames
+	 * @return The usernames that were deleted
+	 */
+	public Set<String> deleteAdmins(Collection<String> usernames) {
+		FlightRecorder.record("api deleteAdmins " + usernames, null);
+		Set<String> deleted = deleteRows("/admin/list-admin", usernames);
+		TestDataTracker.markDeleted(TestDataTracker.ADMIN, deleted);
+		return deleted;
+	}
+
+	/**
+	 * @return The base URL this client talks to
+	 */
+	public String getBaseUrl() {
+		return baseUrl;
+	}
+
+	//Follows the delete link of every table row whose first cell is one of the given texts, reading every page of
+	//the list before deleting so that no row moves to a page already read. A text counts as deleted once each of
+	//its rows was deleted with a successful status.
+	private Set<String> deleteRows(String listPath, Collection<String> firstCells) {
+		Map<String, String> byEscaped = new HashMap<>();
+		for (String firstCell : firstCells) {
+			byEscaped.put(escape(firstCell), firstCell);
+		}
+		Map<String, List<String>> links = new LinkedHashMap<>();
+		Set<String> pages = new HashSet<>();
+		for (String page = listPath; page != null && pages.add(page);) {
+			HttpResponse<String> response = get(page);
+			if (response.statusCode() >= 400) {
+				throw new IllegalStateException("GET " + page + " failed with status " + response.statusCode());
+			}
+			Matcher matcher = ROW.matcher(response.body());
+			while (matcher.find()) {
+				String firstCell = byEscaped.get(matcher.group(1));
+				if (firstCell != null) {
+					links.computeIfAbsent(firstCell, key -> new ArrayList<>()).add(matcher.group(2).replace("&amp;", "&"));
+				}
+			}
+			Matcher next = NEXTPAGE.matcher(response.body());
+			page = next.find() ? next.group(1).replace("&amp;", "&") : null;
+		}
+		Set<String> deleted = new LinkedHashSet<>();
+		for (Map.Entry<String, List<String>> rows : links.entrySet()) {
+			boolean allDeleted = true;
+			for (String link : rows.getValue()) {
+				int status = get(link).statusCode();
+				if (status >= 400) {
+					allDeleted = false;
+					LOG.warn("Deleting {} with {} failed with status {}", rows.getKey(), link, status);
+				}
+			}
+			if (allDeleted) {
+				deleted.add(rows.getKey());
+			}
+		}
+		return deleted;
+	}
+
+	//Links on the page are either absolute or relative to the base URL
+	private HttpResponse<String> get(String path) {
+		URI uri = path.startsWith("http://") || path.startsWith("https://") ? URI.create(path) : URI.create(baseUrl + path);
+		return send(HttpRequest.newBuilder(uri).GET());
+	}
+
+	private HttpResponse<String> post(String path, Map<String, String> fields) {
+		if (token == null) {
+			token = token(get("/admin/list-news"));
+		}
+		StringBuilder body = new StringBuilder("_token=").append(encode(token));
+		fields.forEach((name, value) -> body.append('&').append(encode(name)).append('=').append(encode(value)));
+		HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(body.toString())));
+		if (response.statusCode() >= 400) {
+			throw new IllegalStateException("POST " + path + " failed with status " + response.statusCode());
+		}
+		return response;
+	}
+
+	private HttpResponse<String> send(HttpRequest.Builder request) {
+		try {
+			return client.send(request.timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while calling " + baseUrl, e);
+		}
+	}
+
+	private static String token(HttpResponse<String> page) {
+		Matcher matcher = TOKEN.matcher(page.body());
+		if (!matcher.find()) {
+			throw new IllegalStateException("No _token field on " + page.uri() + ", the session may have expired");
+		}
+		return matcher.group(1);
+	}
+
+	private static String origin(String url) {
+		URI uri = URI.create(url);
+		return uri.getScheme() + "://" + uri.getRawAuthority();
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("'", "&#39;");
+	}
+}
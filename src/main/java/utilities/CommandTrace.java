@@ -0,0 +1,338 @@
+package utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import constants.Constant;
+
+/**
+ * CommandTrace records every WebDriver command of the running test, fed by {@link TraceListener}:
+ * the command, its target and arguments, its duration and its result or error. The page source
+ * is stored when the test fails and, with -Dtrace.mode=all only, at page transitions too
+ * (navigations, and clicks that changed the URL); in the default mode a passing test costs no
+ * WebDriver command beyond its own, and the URLs it navigated to are in the arguments of its
+ * navigation commands. Records go through a gzip stream into memory as they happen, with
+ * repeated strings written once, so a test costs a few kilobytes; the file is written when the
+ * test ends, for failed tests only unless -Dtrace.mode=all. {@link TraceViewer} turns a trace into
+ * an HTML page that replays it.
+ *
+ * <pre>
+ * file    = "GATR" version gzip(header record*)
+ * header  = test name (string), start epoch millis (varint)
+ * record  = 1 string                                     defines the next string id
+ *         | 2 start duration command target args outcome result
+ *         | 3 at url-id dom                              page source snapshot
+ *         | 4 at status                                  end of the test
+ * </pre>
+ *
+ * Times are microseconds since the start of the test and all numbers are unsigned varints.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class CommandTrace {
+
+	public static final String EXTENSION = ".trace";
+	public static final int STATUSPASSED = 0;
+	public static final int STATUSFAILED = 1;
+
+	static final byte[] MAGIC = { 'G', 'A', 'T', 'R' };
+	static final int VERSION = 1;
+	static final int STRING = 1;
+	static final int COMMAND = 2;
+	static final int SNAPSHOT = 3;
+	static final int END = 4;
+
+	private static final Logger LOG = LogManager.getLogger(CommandTrace.class);
+	private static final ThreadLocal<Trace> TRACE = new ThreadLocal<>();
+	private static final AtomicInteger FILES = new AtomicInteger();
+	//Snapshots cost round trips; only worth them at transitions when every trace is kept
+	private static final boolean TRANSITIONSNAPSHOTS = "all".equalsIgnoreCase(Constant.TRACEMODE);
+
+	/**
+	 * The trace of one test while it is being recorded.
+	 */
+	private static final class Trace {
+		final WebDriver driver;
+		final String testName;
+		final long startNanos = System.nanoTime();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+		final DataOutputStream out;
+		final Map<String, Integer> strings = new HashMap<>();
+		final Deque<Long> starts = new ArrayDeque<>();
+		String lastUrl;
+		int lastDomHash;
+
+		Trace(WebDriver driver, String testName) throws IOException {
+			this.driver = driver;
+			this.testName = testName;
+			out = new DataOutputStream(new GZIPOutputStream(bytes, 8192));
+			writeString(out, testName);
+			writeVarLong(out, System.currentTimeMillis());
+		}
+
+		long micros() {
+			return (System.nanoTime() - startNanos) / 1000;
+		}
+
+		int string(String value) throws IOException {
+			String text = value == null ? "" : value;
+			Integer id = strings.get(text);
+			if (id == null) {
+				id = strings.size();
+				strings.put(text, id);
+				out.writeByte(STRING);
+				writeString(out, text);
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * Starts the trace of a test on the current thread, replacing any earlier one. Does nothing
+	 * with -Dtrace.mode=off.
+	 *
+	 * @param driver   The undecorated driver of the test, used for page snapshots without being traced
+	 * @param testName The name of the test
+	 */
+	public static void start(WebDriver driver, String testName) {
+		TRACE.remove();
+		if (!isEnabled()) {
+			return;
+		}
+		try {
+			TRACE.set(new Trace(driver, testName));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return False with -Dtrace.mode=off
+	 */
+	public static boolean isEnabled() {
+		return !"off".equalsIgnoreCase(Constant.TRACEMODE);
+	}
+
+	/**
+	 * Ends the trace of the current thread and writes it to traces/&lt;run id&gt;/ if it is kept:
+	 * always with -Dtrace.mode=all, for failed tests with the default mode "failed".
+	 *
+	 * @param failed True if the test failed; the current page is then stored as a last snapshot
+	 * @return The trace file, or null if none was written
+	 */
+	public static File stop(boolean failed) {
+		Trace trace = TRACE.get();
+		TRACE.remove();
+		if (trace == null || !(failed || "all".equalsIgnoreCase(Constant.TRACEMODE))) {
+			return null;
+		}
+		try {
+			if (failed) {
+				snapshot(trace, true);//unless the page is still the one of the last snapshot
+			}
+			trace.out.writeByte(END);
+			writeVarLong(trace.out, trace.micros());
+			trace.out.writeByte(failed ? STATUSFAILED : STATUSPASSED);
+			trace.out.close();
+			File file = new File(Constant.TRACEFOLDER + File.separator + Constant.RUNID, trace.testName.replaceAll("[^A-Za-z0-9_.-]", "_")
+					+ "-" + FILES.incrementAndGet() + EXTENSION);
+			Files.createDirectories(file.getParentFile().toPath());
+			try (OutputStream output = Files.newOutputStream(file.toPath())) {
+				output.write(MAGIC);
+				output.write(VERSION);
+				trace.bytes.writeTo(output);
+			}
+			return file;
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Command trace of {} could not be written: {}", trace.testName, e.toString());
+			return null;
+		}
+	}
+
+	static void commandStarted() {
+		Trace trace = TRACE.get();
+		if (trace != null) {
+			trace.starts.push(trace.micros());
+		}
+	}
+
+	/**
+	 * Records a finished command of the current thread's trace.
+	 *
+	 * @param transition True if the command navigates, false if it cannot, null if it may (a click)
+	 */
+	static void commandFinished(String command, String target, String arguments, String result, boolean error,
+			Boolean transition) {
+		Trace trace = TRACE.get();
+		if (trace == null || trace.starts.isEmpty()) {
+			return;
+		}
+		long start = trace.starts.pop();
+		try {
+			int commandId = trace.string(command);
+			int targetId = trace.string(target);
+			int argumentsId = trace.string(arguments);
+			int resultId = trace.string(result);
+			trace.out.writeByte(COMMAND);
+			writeVarLong(trace.out, start);
+			writeVarLong(trace.out, trace.micros() - start);
+			writeVarLong(trace.out, commandId);
+			writeVarLong(trace.out, targetId);
+			writeVarLong(trace.out, argumentsId);
+			trace.out.writeByte(error ? 1 : 0);
+			writeVarLong(trace.out, resultId);
+			if (TRANSITIONSNAPSHOTS && !error && trace.starts.isEmpty() && !Boolean.FALSE.equals(transition)) {
+				snapshot(trace, transition != null);
+			}
+		} catch (IOException | RuntimeException e) {
+			TRACE.remove();//a broken trace is dropped, the test goes on
+			LOG.warn("Command trace of {} stopped: {}", trace.testName, e.toString());
+		}
+	}
+
+	//Stores the page source if the URL changed, or with anyChange also if only the page changed
+	private static void snapshot(Trace trace, boolean anyChange) throws IOException {
+		String url;
+		String dom;
+		try {
+			url = trace.driver.getCurrentUrl();
+			if (!anyChange && url != null && url.equals(trace.lastUrl)) {
+				return;//a click that stayed on the page, not worth a page source round trip
+			}
+			dom = trace.driver.getPageSource();
+		} catch (RuntimeException e) {
+			return;//no page, or the browser is gone
+		}
+		if (dom == null || (url != null && url.equals(trace.lastUrl) && dom.hashCode() == trace.lastDomHash)) {
+			return;
+		}
+		trace.lastUrl = url;
+		trace.lastDomHash = dom.hashCode();
+		int urlId = trace.string(url);
+		byte[] bytes = dom.getBytes(StandardCharsets.UTF_8);
+		trace.out.writeByte(SNAPSHOT);
+		writeVarLong(trace.out, trace.micros());
+		writeVarLong(trace.out, urlId);
+		writeVarLong(trace.out, bytes.length);
+		trace.out.write(bytes);
+	}
+
+	/**
+	 * Reads a trace file.
+	 *
+	 * @param file A file written by {@link #stop(boolean)}
+	 * @return The test, start (epoch millis), end (micros), status, and its commands and snapshots in order
+	 * @throws IOException If the file cannot be read or is not a trace
+	 */
+	public static Map<String, Object> read(Path file) throws IOException {
+		try (InputStream input = Files.newInputStream(file)) {
+			byte[] magic = input.readNBytes(MAGIC.length);
+			int version = input.read();
+			if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+				throw new IOException(file + " is not a version " + VERSION + " command trace");
+			}
+			DataInputStream in = new DataInputStream(new GZIPInputStream(input));
+			Map<String, Object> recording = new LinkedHashMap<>();
+			List<Map<String, Object>> commands = new ArrayList<>();
+			List<Map<String, Object>> snapshots = new ArrayList<>();
+			recording.put("test", readString(in));
+			recording.put("start", readVarLong(in));
+			recording.put("commands", commands);
+			recording.put("snapshots", snapshots);
+			List<String> strings = new ArrayList<>();
+			for (int type = in.read(); type != -1; type = in.read()) {
+				switch (type) {
+				case STRING:
+					strings.add(readString(in));
+					break;
+				case COMMAND:
+					Map<String, Object> command = new HashMap<>();
+					command.put("start", readVarLong(in));
+					command.put("duration", readVarLong(in));
+					command.put("command", strings.get((int) readVarLong(in)));
+					command.put("target", strings.get((int) readVarLong(in)));
+					command.put("arguments", strings.get((int) readVarLong(in)));
+					command.put("error", in.readByte() == 1);
+					command.put("result", strings.get((int) readVarLong(in)));
+					commands.add(command);
+					break;
+				case SNAPSHOT:
+					Map<String, Object> snapshot = new HashMap<>();
+					snapshot.put("at", readVarLong(in));
+					snapshot.put("url", strings.get((int) readVarLong(in)));
+					byte[] dom = new byte[(int) readVarLong(in)];
+					in.readFully(dom);
+					snapshot.put("dom", new String(dom, StandardCharsets.UTF_8));
+					snapshots.add(snapshot);
+					break;
+				case END:
+					recording.put("end", readVarLong(in));
+					recording.put("status", in.readByte() == STATUSFAILED ? "failed" : "passed");
+					break;
+				default:
+					throw new IOException("Unknown record type " + type + " in " + file);
+				}
+			}
+			return recording;
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[(int) readVarLong(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	//Seven bits per byte, low bits first, high bit set on all but the last byte
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		long rest = value;
+		while ((rest & ~0x7FL) != 0) {
+			out.writeByte((int) ((rest & 0x7F) | 0x80));
+			rest >>>= 7;
+		}
+		out.writeByte((int) rest);
+	}
+
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+}
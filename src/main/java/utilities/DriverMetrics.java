@@ -0,0 +1,150 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DriverMetrics collects the latency of every WebDriver command and explicit wait of the run,
+ * broken down by command, the page-object method that issued it and the locator involved.
+ * The collected histograms are exported as a Prometheus text file and as a summary table.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class DriverMetrics {
+
+	/**
+	 * Histogram bucket bounds of the Prometheus export, in seconds.
+	 */
+	private static final double[] EXPORTBUCKETS = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+	private static final Map<Key, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+	/**
+	 * Identifies one histogram: a command issued from a page method against a locator.
+	 */
+	private static final class Key {
+		final String command;
+		final String pageMethod;
+		final String locator;
+
+		Key(String command, String pageMethod, String locator) {
+			this.command = command;
+			this.pageMethod = pageMethod;
+			this.locator = locator;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return command.equals(key.command) && pageMethod.equals(key.pageMethod) && locator.equals(key.locator);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(command, pageMethod, locator);
+		}
+	}
+
+	/**
+	 * Records the duration of one command.
+	 *
+	 * @param command The command name, e.g. "WebElement.click"
+	 * @param locator The locator involved, or null
+	 * @param nanos The duration in nanoseconds
+	 */
+	public static void record(String command, String locator, long nanos) {
+		Key key = new Key(command, callingPageMethod(), locator == null ? "" : locator);
+		HISTOGRAMS.computeIfAbsent(key, k -> new LatencyHistogram()).record(nanos / 1000);
+	}
+
+	/**
+	 * Returns the page-object method on the current call stack, e.g. "NewsPage.searchButton".
+	 */
+	private static String callingPageMethod() {
+		return StackWalker.getInstance().walk(frames -> frames
+				.filter(frame -> frame.getClassName().startsWith("pages."))
+				.map(frame -> frame.getClassName().substring("pages.".length()) + "." + frame.getMethodName())
+				.findFirst().orElse(""));
+	}
+
+	/**
+	 * Writes all histograms in the Prometheus text exposition format.
+	 *
+	 * @param file The file to write, replaced if it exists
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void writePrometheus(Path file) throws IOException {
+		StringBuilder out = new StringBuilder();
+		out.append("# HELP webdriver_command_seconds Latency of WebDriver commands and explicit waits.\n");
+		out.append("# TYPE webdriver_command_seconds histogram\n");
+		for (Map.Entry<Key, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+			Key key = entry.getKey();
+			LatencyHistogram histogram = entry.getValue();
+			String labels = "command=\"" + escape(key.command) + "\",page_method=\"" + escape(key.pageMethod)
+					+ "\",locator=\"" + escape(key.locator) + "\"";
+			for (double bound : EXPORTBUCKETS) {
+				out.append("webdriver_command_seconds_bucket{").append(labels).append(",le=\"").append(bound)
+						.append("\"} ").append(histogram.getCountAtOrBelow((long) (bound * 1_000_000))).append('\n');
+			}
+			out.append("webdriver_command_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ")
+					.append(histogram.getCount()).append('\n');
+			out.append("webdriver_command_seconds_sum{").append(labels).append("} ")
+					.append(histogram.getSum() / 1_000_000.0).append('\n');
+			out.append("webdriver_command_seconds_count{").append(labels).append("} ").append(histogram.getCount())
+					.append('\n');
+		}
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		Files.write(file, out.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the slowest commands by total time as a table with a header row.
+	 *
+	 * @param limit The maximum number of rows
+	 * @return Rows of command, page method, locator, count, p50, p90, p99, max and total in milliseconds
+	 */
+	public static String[][] summaryTable(int limit) {
+		List<Map.Entry<Key, LatencyHistogram>> entries = new ArrayList<>(HISTOGRAMS.entrySet());
+		entries.sort(Comparator.comparingLong((Map.Entry<Key, LatencyHistogram> e) -> e.getValue().getSum()).reversed());
+		int rows = Math.min(limit, entries.size());
+		String[][] table = new String[rows + 1][];
+		table[0] = new String[] { "Command", "Page method", "Locator", "Count", "p50 ms", "p90 ms", "p99 ms", "Max ms",
+				"Total ms" };
+		for (int i = 0; i < rows; i++) {
+			Key key = entries.get(i).getKey();
+			LatencyHistogram histogram = entries.get(i).getValue();
+			table[i + 1] = new String[] { key.command, key.pageMethod, key.locator,
+					String.valueOf(histogram.getCount()), millis(histogram.getPercentile(50)),
+					millis(histogram.getPercentile(90)), millis(histogram.getPercentile(99)),
+					millis(histogram.getMax()), millis(histogram.getSum()) };
+		}
+		return table;
+	}
+
+	/**
+	 * @return true if no command has been recorded yet
+	 */
+	public static boolean isEmpty() {
+		return HISTOGRAMS.isEmpty();
+	}
+
+	private static String millis(long micros) {
+		return String.format("%.1f", micros / 1000.0);
+	}
+
+	private static String escape(String label) {
+		return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,507 @@
+package utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.remote.service.DriverFinder;
+import org.openqa.selenium.remote.service.DriverService;
+
+import constants.Constant;
+
+/**
+ * DriverProvisioner resolves the driver and browser binaries of a browser once per JVM, so that
+ * creating a session does no discovery work. Driver binaries are kept in a versioned cache
+ * (-Ddriver.cache, default ~/.cache/gaframework/drivers) with one folder per driver and browser
+ * major version, each holding the binary and its SHA-256, which is checked before the binary is
+ * used. A cache miss is filled from -Dwebdriver.chrome.driver / -Dwebdriver.gecko.driver, from a
+ * matching driver on the PATH, or once from Selenium Manager unless -Ddriver.offline=true. Browser
+ * versions are remembered by binary path, size and modification time, so a warm cache starts no
+ * process at all. Chrome sessions can share one long-lived chromedriver, see
+ * {@link #sharedChromeService()}. To seed the cache of an offline agent:
+ *
+ * <pre>
+ * java -cp ... utilities.DriverProvisioner chrome [path to chromedriver]
+ * </pre>
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class DriverProvisioner {
+
+	private static final Logger LOG = LogManager.getLogger(DriverProvisioner.class);
+	private static final Pattern VERSION = Pattern.compile("\\d+(\\.\\d+)+");
+	private static final long VERSIONTIMEOUTSECONDS = 10;
+	private static final String BROWSERVERSIONS = "browser-versions.properties";
+	private static final String CHECKSUM = ".sha256";
+	private static final boolean WINDOWS = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+	private static final String CACHE = "cache";
+	private static final String PATH = "PATH";
+	private static final String SELENIUMMANAGER = "Selenium Manager";
+
+	private static final Map<String, Resolution> RESOLVED = new ConcurrentHashMap<>();
+	private static final Map<String, AtomicInteger> SESSIONS = new ConcurrentHashMap<>();
+	private static final Object BROWSERVERSIONSLOCK = new Object();
+	private static ChromeDriverService sharedService;
+
+	/**
+	 * The driver and browser binaries of one browser and where they came from.
+	 */
+	public static final class Resolution {
+		private final String browser;
+		private final String browserPath;
+		private final String browserVersion;
+		private final String driverPath;
+		private final String driverVersion;
+		private final String source;
+		private final long millis;
+
+		Resolution(String browser, String browserPath, String browserVersion, String driverPath, String driverVersion,
+				String source, long millis) {
+			this.browser = browser;
+			this.browserPath = browserPath;
+			this.browserVersion = browserVersion;
+			this.driverPath = driverPath;
+			this.driverVersion = driverVersion;
+			this.source = source;
+			this.millis = millis;
+		}
+
+		public String getBrowser() {
+			return browser;
+		}
+
+		/**
+		 * @return The browser binary, or null to let the driver find the installed browser
+		 */
+		public String getBrowserPath() {
+			return browserPath;
+		}
+
+		public String getBrowserVersion() {
+			return browserVersion;
+		}
+
+		/**
+		 * @return The driver binary in the cache
+		 */
+		public String getDriverPath() {
+			return driverPath;
+		}
+
+		public String getDriverVersion() {
+			return driverVersion;
+		}
+
+		/**
+		 * @return Where the driver binary came from: the cache, a system property, the PATH or Selenium Manager
+		 */
+		public String getSource() {
+			return source;
+		}
+
+		public long getMillis() {
+			return millis;
+		}
+
+		@Override
+		public String toString() {
+			return browser + " " + (browserVersion == null ? "(version unknown)" : browserVersion) + " at "
+					+ (browserPath == null ? "the default location" : browserPath) + ", driver " + driverVersion + " at "
+					+ driverPath + " from " + source + " in " + millis + " ms";
+		}
+	}
+
+	/**
+	 * What distinguishes the browsers while provisioning them.
+	 */
+	private enum Browser {
+		CHROME("chrome", "chromedriver", ChromeDriverService.CHROME_DRIVER_EXE_PROPERTY, "chrome.binary", true,
+				"google-chrome", "google-chrome-stable", "chromium", "chromium-browser"),
+		FIREFOX("firefox", "geckodriver", GeckoDriverService.GECKO_DRIVER_EXE_PROPERTY, "firefox.binary", false,
+				"firefox", "firefox-esr");
+
+		final String name;
+		final String driver;
+		final String driverProperty;
+		final String binaryProperty;
+		//chromedriver drives only the Chrome major version it was built for
+		final boolean sameMajorVersion;
+		final List<String> binaries;
+
+		Browser(String name, String driver, String driverProperty, String binaryProperty, boolean sameMajorVersion,
+				String... binaries) {
+			this.name = name;
+			this.driver = driver;
+			this.driverProperty = driverProperty;
+			this.binaryProperty = binaryProperty;
+			this.sameMajorVersion = sameMajorVersion;
+			this.binaries = List.of(binaries);
+		}
+
+		String driverFile() {
+			return WINDOWS ? driver + ".exe" : driver;
+		}
+
+		DriverService defaultService() {
+			return this == CHROME ? ChromeDriverService.createDefaultService() : GeckoDriverService.createDefaultService();
+		}
+
+		Capabilities defaultOptions() {
+			return this == CHROME ? new ChromeOptions() : new FirefoxOptions();
+		}
+
+		static Browser of(String name) {
+			for (Browser browser : values()) {
+				if (browser.name.equalsIgnoreCase(name)) {
+					return browser;
+				}
+			}
+			throw new IllegalArgumentException("No driver provisioning for browser " + name);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0 || args.length > 2) {
+			System.err.println("Usage: DriverProvisioner <chrome|firefox> [driver binary]");
+			System.exit(2);
+		}
+		Browser browser = Browser.of(args[0]);
+		if (args.length == 2) {
+			System.setProperty(browser.driverProperty, args[1]);
+		}
+		System.out.println(resolve(args[0]));
+	}
+
+	/**
+	 * Resolves the driver and browser binaries of a browser, once per JVM; later calls return the
+	 * same resolution and only count the session.
+	 *
+	 * @param browser chrome or firefox
+	 * @return The binaries to start the session with
+	 * @throws IllegalStateException If no driver binary can be provisioned, e.g. offline with an empty cache
+	 */
+	public static Resolution resolve(String browser) {
+		Browser kind = Browser.of(browser);
+		SESSIONS.computeIfAbsent(kind.name, key -> new AtomicInteger()).incrementAndGet();
+		return resolution(kind);
+	}
+
+	private static Resolution resolution(Browser kind) {
+		return RESOLVED.computeIfAbsent(kind.name, key -> {
+			try {
+				return provision(kind);
+			} catch (IOException e) {
+				throw new IllegalStateException(kind.driver + " could not be provisioned in " + Constant.DRIVERCACHEFOLDER, e);
+			}
+		});
+	}
+
+	/**
+	 * Returns the chromedriver shared by all Chrome sessions of this JVM, starting it on first use
+	 * or again if it died. Sessions on it are created with a RemoteWebDriver, whose quit ends the
+	 * session and leaves the service running.
+	 *
+	 * @return The running service
+	 * @throws IOException If the service cannot be started
+	 */
+	public static synchronized ChromeDriverService sharedChromeService() throws IOException {
+		if (sharedService != null && sharedService.isRunning()) {
+			return sharedService;
+		}
+		if (sharedService != null) {
+			LOG.warn("Shared chromedriver on {} is gone, starting another one", sharedService.getUrl());
+			ProcessReaper.unshare(sharedService);
+		}
+		Resolution chrome = resolution(Browser.CHROME);
+		ChromeDriverService service = new ChromeDriverService.Builder()
+				.usingDriverExecutable(new File(chrome.getDriverPath())).usingAnyFreePort().build();
+		service.start();
+		ProcessReaper.share(service);
+		sharedService = service;
+		LOG.info("Shared chromedriver {} running on {}", chrome.getDriverVersion(), service.getUrl());
+		return service;
+	}
+
+	/**
+	 * Stops the shared chromedriver, if one was started; one that does not stop is left to
+	 * {@link ProcessReaper} at JVM exit.
+	 */
+	public static synchronized void stopSharedService() {
+		if (sharedService == null) {
+			return;
+		}
+		try {
+			sharedService.stop();
+			ProcessReaper.unshare(sharedService);
+		} catch (RuntimeException e) {
+			LOG.warn("Shared chromedriver on {} did not stop, it is killed at JVM exit: {}", sharedService.getUrl(), e.toString());
+		} finally {
+			sharedService = null;
+		}
+	}
+
+	/**
+	 * @return True if no browser was provisioned in this JVM
+	 */
+	public static boolean isEmpty() {
+		return RESOLVED.isEmpty();
+	}
+
+	/**
+	 * @return How every provisioned browser was resolved; the first row is the header
+	 */
+	public static String[][] summaryTable() {
+		List<String[]> rows = new ArrayList<>();
+		rows.add(new String[] { "Browser", "Browser version", "Driver version", "Driver from", "Resolved in", "Sessions" });
+		for (Resolution resolution : RESOLVED.values()) {
+			rows.add(new String[] { resolution.getBrowser(),
+					resolution.getBrowserVersion() == null ? "unknown" : resolution.getBrowserVersion(),
+					resolution.getDriverVersion(), resolution.getSource(), resolution.getMillis() + " ms",
+					String.valueOf(SESSIONS.getOrDefault(resolution.getBrowser(), new AtomicInteger()).get()) });
+		}
+		return rows.toArray(new String[0][]);
+	}
+
+	private static Resolution provision(Browser browser) throws IOException {
+		long start = System.nanoTime();
+		Path cache = Paths.get(Constant.DRIVERCACHEFOLDER);
+		String browserPath = browserBinary(browser);
+		String browserVersion = browserPath == null ? null : browserVersion(cache, browserPath);
+		Path folder = cacheFolder(cache, browser, browserVersion);
+		Path binary = folder.resolve(browser.driverFile());
+		String driverVersion = verify(binary);
+		String source = CACHE;
+		if (driverVersion == null) {
+			Path driver = null;
+			String property = System.getProperty(browser.driverProperty);
+			if (property != null && !property.isEmpty()) {
+				driver = Paths.get(property);
+				source = browser.driverProperty;
+			}
+			if (driver == null) {
+				driver = driverOnPath(browser, browserVersion);
+				source = PATH;
+			}
+			if (driver == null) {
+				if (Constant.DRIVEROFFLINE) {
+					throw new IllegalStateException("No " + browser.driver + " for " + browser.name + " "
+							+ (browserVersion == null ? "" : browserVersion) + " in " + folder
+							+ " and -Ddriver.offline=true; seed it with utilities.DriverProvisioner " + browser.name
+							+ " <driver binary>");
+				}
+				DriverFinder finder = new DriverFinder(browser.defaultService(), browser.defaultOptions());
+				driver = Paths.get(finder.getDriverPath());
+				source = SELENIUMMANAGER;
+				if (browserPath == null && finder.hasBrowserPath()) {
+					browserPath = finder.getBrowserPath();
+					browserVersion = browserVersion(cache, browserPath);
+					folder = cacheFolder(cache, browser, browserVersion);
+					binary = folder.resolve(browser.driverFile());
+				}
+			}
+			driverVersion = store(driver, folder, binary);
+		}
+		Resolution resolution = new Resolution(browser.name, browserPath, browserVersion, binary.toString(), driverVersion,
+				source, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		LOG.info("Provisioned {}", resolution);
+		return resolution;
+	}
+
+	//One folder per driver and browser major version, e.g. chromedriver/chrome-124
+	private static Path cacheFolder(Path cache, Browser browser, String browserVersion) {
+		return cache.resolve(browser.driver).resolve(browserVersion == null ? browser.name + "-any"
+				: browser.name + "-" + major(browserVersion));
+	}
+
+	//The driver version if the cached binary is there and matches its checksum; a corrupt entry is removed
+	private static String verify(Path binary) throws IOException {
+		Path checksum = binary.resolveSibling(binary.getFileName() + CHECKSUM);
+		if (!Files.isRegularFile(binary) || !Files.isRegularFile(checksum)) {
+			return null;
+		}
+		String[] fields = new String(Files.readAllBytes(checksum), StandardCharsets.UTF_8).trim().split("\\s+", 2);
+		if (fields[0].equalsIgnoreCase(sha256(binary))) {
+			return fields.length > 1 ? fields[1] : "unknown";
+		}
+		LOG.warn("Checksum of {} does not match {}, provisioning it again", binary, checksum);
+		Files.deleteIfExists(checksum);
+		Files.deleteIfExists(binary);
+		return null;
+	}
+
+	//Copies the driver into the cache under its checksum; moved into place so that other JVMs never see half a file
+	private static String store(Path driver, Path folder, Path binary) throws IOException {
+		if (!Files.isExecutable(driver)) {
+			throw new IOException(driver + " is not an executable driver binary");
+		}
+		String driverVersion = version(driver.toString());
+		Files.createDirectories(folder);
+		Path copy = Files.createTempFile(folder, binary.getFileName().toString(), ".tmp");
+		Files.copy(driver, copy, StandardCopyOption.REPLACE_EXISTING);
+		copy.toFile().setExecutable(true);
+		String line = sha256(copy) + " " + (driverVersion == null ? "unknown" : driverVersion) + "\n";
+		Path checksum = Files.createTempFile(folder, binary.getFileName().toString(), ".tmp");
+		Files.write(checksum, line.getBytes(StandardCharsets.UTF_8));
+		Files.move(copy, binary, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Files.move(checksum, binary.resolveSibling(binary.getFileName() + CHECKSUM), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		LOG.info("Cached {} {} from {} in {}", binary.getFileName(), driverVersion, driver, folder);
+		return driverVersion == null ? "unknown" : driverVersion;
+	}
+
+	//-Dchrome.binary / -Dfirefox.binary, else the first known browser binary on the PATH; null leaves it to the driver
+	private static String browserBinary(Browser browser) {
+		String property = System.getProperty(browser.binaryProperty);
+		if (property != null && !property.isEmpty()) {
+			return property;
+		}
+		for (String name : browser.binaries) {
+			Path found = onPath(WINDOWS ? name + ".exe" : name);
+			if (found != null) {
+				return found.toString();
+			}
+		}
+		return null;
+	}
+
+	//A driver on the PATH; for Chrome only one built for the installed major version
+	private static Path driverOnPath(Browser browser, String browserVersion) {
+		Path driver = onPath(browser.driverFile());
+		if (driver == null || !browser.sameMajorVersion || browserVersion == null) {
+			return driver;
+		}
+		String driverVersion = version(driver.toString());
+		if (driverVersion != null && major(driverVersion).equals(major(browserVersion))) {
+			return driver;
+		}
+		LOG.info("Ignoring {} {} on the PATH, {} is {}", driver, driverVersion, browser.name, browserVersion);
+		return null;
+	}
+
+	private static Path onPath(String file) {
+		String path = System.getenv("PATH");
+		if (path == null) {
+			return null;
+		}
+		for (String folder : path.split(File.pathSeparator)) {
+			Path candidate = Paths.get(folder, file);
+			if (!folder.isEmpty() && Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	//Asks the browser once and remembers the answer for the binary's path, size and modification time
+	private static String browserVersion(Path cache, String browserPath) {
+		synchronized (BROWSERVERSIONSLOCK) {
+			Path binary = Paths.get(browserPath);
+			String stamp;
+			try {
+				Path real = binary.toRealPath();
+				stamp = Files.size(real) + ":" + Files.getLastModifiedTime(real).toMillis();
+			} catch (IOException e) {
+				return null;
+			}
+			Path file = cache.resolve(BROWSERVERSIONS);
+			Properties versions = new Properties();
+			if (Files.isRegularFile(file)) {
+				try (InputStream input = Files.newInputStream(file)) {
+					versions.load(input);
+				} catch (IOException e) {
+					LOG.warn("Browser versions could not be read from {}: {}", file, e.toString());
+				}
+			}
+			String known = versions.getProperty(browserPath);
+			if (known != null && known.startsWith(stamp + ":")) {
+				return known.substring(stamp.length() + 1);
+			}
+			if (WINDOWS) {
+				return null;//chrome.exe --version opens a window instead of printing the version
+			}
+			String version = version(browserPath);
+			if (version == null) {
+				return null;
+			}
+			versions.setProperty(browserPath, stamp + ":" + version);
+			try {
+				Files.createDirectories(cache);
+				Path copy = Files.createTempFile(cache, BROWSERVERSIONS, ".tmp");
+				try (OutputStream output = Files.newOutputStream(copy)) {
+					versions.store(output, "Browser versions by binary path: size:modified:version");
+				}
+				Files.move(copy, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				LOG.warn("Browser versions could not be written to {}: {}", file, e.toString());
+			}
+			return version;
+		}
+	}
+
+	//The version printed by binary --version, or null
+	private static String version(String binary) {
+		try {
+			Process process = new ProcessBuilder(binary, "--version").redirectErrorStream(true).start();
+			process.getOutputStream().close();
+			if (!process.waitFor(VERSIONTIMEOUTSECONDS, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+				LOG.warn("{} --version did not answer within {} s", binary, VERSIONTIMEOUTSECONDS);
+				return null;
+			}
+			String output;
+			try (InputStream input = process.getInputStream()) {
+				output = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+			}
+			Matcher matcher = VERSION.matcher(output);
+			return matcher.find() ? matcher.group() : null;
+		} catch (IOException e) {
+			LOG.warn("Version of {} could not be read: {}", binary, e.toString());
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	private static String major(String version) {
+		int dot = version.indexOf('.');
+		return dot < 0 ? version : version.substring(0, dot);
+	}
+
+	private static String sha256(Path file) throws IOException {
+		try (DigestInputStream input = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+			input.transferTo(OutputStream.nullOutputStream());
+			return HexFormat.of().formatHex(input.getMessageDigest().digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);//every JVM has SHA-256
+		}
+	}
+}
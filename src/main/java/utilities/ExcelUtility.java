@@ -8,6 +8,7 @@ import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import constants.Constant;
+import jfr.WorkbookLoadEvent;
 
 public class ExcelUtility {
 
@@ -17,13 +18,11 @@ public class ExcelUtility {
 
 			static XSSFSheet s;// sheets
 
-			public static String getStringData(int a,int b,String sheet) throws IOException // a is row ,b is column or cell
+			public static synchronized String getStringData(int a,int b,String sheet) throws IOException // a is row ,b is column or cell
 
 			{
 			
-			f=new FileInputStream(Constant.TESTDATAFILE);
-
-			w=new XSSFWorkbook(f);
+			loadWorkbook(sheet);
 
 			s=w.getSheet(sheet);
 
@@ -35,11 +34,9 @@ public class ExcelUtility {
 
 			}
 
-			public static String getIntegerData(int a,int b,String sheet) throws IOException {
+			public static synchronized String getIntegerData(int a,int b,String sheet) throws IOException {
 
-			f=new FileInputStream(Constant.TESTDATAFILE);
-			
-			w=new XSSFWorkbook(f);
+			loadWorkbook(sheet);
 
 			s=w.getSheet(sheet);
 
@@ -52,5 +49,22 @@ public class ExcelUtility {
 			return String.valueOf(y);
 			}
 
-	}
+			//Opens the test data workbook into the shared fields, callers are synchronized; the load time shows up as a gaframework.WorkbookLoad JFR event
+			private static void loadWorkbook(String sheet) throws IOException {
+
+			WorkbookLoadEvent event = new WorkbookLoadEvent();
+
+			event.begin();
 
+			f=new FileInputStream(Constant.TESTDATAFILE);
+
+			w=new XSSFWorkbook(f);
+
+			event.sheet = sheet;
+
+			event.testName = FlightRecorder.currentTestName();
+
+			event.commit();
+			}
+
+	}
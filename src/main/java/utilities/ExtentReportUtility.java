@@ -1,15 +1,27 @@
 package utilities;
+
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+
+import constants.Constant;
 public class ExtentReportUtility {
-		public static final ExtentReports extentReports = new ExtentReports();//static instance of extentreports that can be shared accross the application
-		public synchronized static ExtentReports createExtentReports() {
+		//A shard run with -Dshard.id writes results-<shard id>.jsonl, merged into one report by reportgeneration.ReportMerger
+		public static final String REPORTFILE = Constant.SHARDID.isEmpty() ? "./extent-reports/extent-report.html" : "./extent-reports/extent-report-" + Constant.SHARDID + ".html";
+		public static final String RESULTSFILE = Constant.SHARDID.isEmpty() ? "./extent-reports/results.jsonl" : "./extent-reports/results-" + Constant.SHARDID + ".jsonl";//one JSON record per finished test, the report is rendered from it
+		public static final String MERGEDREPORTFILE = "./extent-reports/extent-report.html";
+		public static final String MERGEDRESULTSFILE = "./extent-reports/results.jsonl";
+		public static final String JUNITFILE = "./extent-reports/junit-results.xml";
+		//Creates a report instance; the report is rendered from a results file by reportgeneration.ReportRenderer
+		public static ExtentReports newExtentReports(String reportFile) {
+			return configure(new ExtentReports(), reportFile);
+		}
+		private static ExtentReports configure(ExtentReports extent, String reportFile) {
 			//Creates an instance of the reporter that will generate the HTML report in the path "./extent-reports/extent-report.html".
-			ExtentSparkReporter reporter = new ExtentSparkReporter("./extent-reports/extent-report.html");//ExtentSparkReporter: File creation
+			ExtentSparkReporter reporter = new ExtentSparkReporter(reportFile);//ExtentSparkReporter: File creation
 			reporter.config().setReportName("7R Mart SuperMarket");
-			extentReports.attachReporter(reporter);
-			extentReports.setSystemInfo("Organization", "Obsqura");
-			extentReports.setSystemInfo("Name", " Thejus"); //provides context of the report
-			return extentReports;
+			extent.attachReporter(reporter);
+			extent.setSystemInfo("Organization", "Obsqura");
+			extent.setSystemInfo("Name", " Thejus"); //provides context of the report
+			return extent;
 		}
 }
@@ -2,8 +2,18 @@ package utilities;
 
 import com.github.javafaker.Faker;
 
+import jfr.FakerInitEvent;
+
 public class FakerUtility {
-Faker faker = new Faker();
+Faker faker;
+
+	public FakerUtility() {
+		FakerInitEvent event = new FakerInitEvent();//Faker construction is timed as a gaframework.FakerInit JFR event
+		event.begin();
+		faker = new Faker();
+		event.testName = FlightRecorder.currentTestName();
+		event.commit();
+	}
 	
 	public String createRandomUserName() {
 		return faker.name().username();
@@ -0,0 +1,233 @@
+package utilities;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import constants.Constant;
+
+/**
+ * FlightRecorder keeps the most recent page-object actions of the running test in memory.
+ * Each thread owns one bounded ring buffer, so recording costs an array write per step and no
+ * WebDriver command: the URL of a step is the one of the last navigation reported through
+ * {@link #navigated(String)}, and the page's real URL is read once, when the test fails.
+ * The buffer is handed over when the test ends and is only written to the report when the
+ * test failed; for passing tests it is simply dropped.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class FlightRecorder {
+
+	private static final ThreadLocal<Recording> RECORDING = new ThreadLocal<>();
+
+	/**
+	 * One recorded action.
+	 */
+	public static final class Step {
+		private final long timestamp;
+		private final String action;
+		private final String locator;
+		private final String url;
+		private final String domSnapshot;
+		private final byte[] screenshot;
+
+		Step(long timestamp, String action, String locator, String url, String domSnapshot, byte[] screenshot) {
+			this.timestamp = timestamp;
+			this.action = action;
+			this.locator = locator;
+			this.url = url;
+			this.domSnapshot = domSnapshot;
+			this.screenshot = screenshot;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		public String getAction() {
+			return action;
+		}
+
+		public String getLocator() {
+			return locator;
+		}
+
+		/**
+		 * @return The URL of the last navigation before the step; a click may have left it since
+		 */
+		public String getUrl() {
+			return url;
+		}
+
+		/**
+		 * @return The page source after the last recorded action, on the step added for a failure
+		 *         only; null for other steps and when DOM snapshots are disabled
+		 */
+		public String getDomSnapshot() {
+			return domSnapshot;
+		}
+
+		/**
+		 * @return The PNG screenshot taken before the step, or null when screenshots are disabled
+		 */
+		public byte[] getScreenshot() {
+			return screenshot;
+		}
+	}
+
+	private static final class Recording {
+		final WebDriver driver;
+		final String testName;
+		final Step[] steps = new Step[Math.max(1, Constant.FLIGHTRECORDERSIZE)];
+		int next;
+		int count;
+		String url;
+		//Page source after the latest step, replaced by every step so that only one is held
+		String dom;
+
+		Recording(WebDriver driver, String testName) {
+			this.driver = driver;
+			this.testName = testName;
+		}
+
+		void add(Step step) {
+			steps[next] = step;
+			next = (next + 1) % steps.length;
+			count = Math.min(count + 1, steps.length);
+		}
+
+		List<Step> snapshot() {
+			List<Step> ordered = new ArrayList<>(count);
+			int first = (next - count + steps.length) % steps.length;
+			for (int i = 0; i < count; i++) {
+				ordered.add(steps[(first + i) % steps.length]);
+			}
+			return ordered;
+		}
+	}
+
+	/**
+	 * Starts a new recording for the current thread, discarding any previous one.
+	 *
+	 * @param driver The WebDriver used by the test, read only for opt-in snapshots and on failure
+	 * @param testName The name of the test being recorded
+	 */
+	public static void start(WebDriver driver, String testName) {
+		RECORDING.set(new Recording(driver, testName));
+	}
+
+	/**
+	 * Ends the recording of the current thread and returns its steps, oldest first.
+	 *
+	 * @return The recorded steps, or an empty list if nothing was recorded
+	 */
+	public static List<Step> stop() {
+		return stop(false);
+	}
+
+	/**
+	 * Ends the recording of the current thread and returns its steps, oldest first. For a failed
+	 * test a last step records the URL the browser is really on and, with DOM snapshots enabled,
+	 * the page source after the latest step.
+	 *
+	 * @param failed True if the test failed
+	 * @return The recorded steps, or an empty list if nothing was recorded
+	 */
+	public static List<Step> stop(boolean failed) {
+		Recording recording = RECORDING.get();
+		RECORDING.remove();
+		if (recording == null) {
+			return Collections.emptyList();
+		}
+		if (failed) {
+			String url = recording.url;
+			try {
+				url = recording.driver.getCurrentUrl();
+			} catch (RuntimeException e) {
+				// the browser may already be gone; keep the last known URL
+			}
+			recording.add(new Step(System.currentTimeMillis(), "failed", "", url, recording.dom, null));
+		}
+		return recording.snapshot();
+	}
+
+	/**
+	 * Tells the recording of the current thread which URL was just navigated to, e.g. by driver.get.
+	 * Does nothing when no recording is active.
+	 *
+	 * @param url The URL navigated to
+	 */
+	public static void navigated(String url) {
+		Recording recording = RECORDING.get();
+		if (recording != null) {
+			recording.url = url;
+		}
+	}
+
+	/**
+	 * Returns the name of the test recorded on the current thread.
+	 *
+	 * @return The test name, or null outside of a test
+	 */
+	public static String currentTestName() {
+		Recording recording = RECORDING.get();
+		return recording == null ? null : recording.testName;
+	}
+
+	/**
+	 * Records an action on an element. Does nothing when no recording is active.
+	 *
+	 * @param action A short description of the action, e.g. "click"
+	 * @param element The element the action is performed on, or null for page-level actions
+	 */
+	public static void record(String action, WebElement element) {
+		Recording recording = RECORDING.get();
+		if (recording == null) {
+			return;
+		}
+		WebDriver driver = recording.driver;
+		byte[] screenshot = null;
+		try {
+			if (Constant.FLIGHTRECORDERDOM) {
+				recording.dom = driver.getPageSource();
+			}
+			if (Constant.FLIGHTRECORDERSCREENSHOTS && driver instanceof TakesScreenshot) {
+				screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+			}
+		} catch (RuntimeException e) {
+			// the browser may already be gone; keep what was captured
+		}
+		recording.add(new Step(System.currentTimeMillis(), action, describe(element), recording.url, null, screenshot));
+	}
+
+	/**
+	 * Describes an element by its locator without querying the browser.
+	 * PageFactory proxies are unwrapped to their locator; other elements use toString().
+	 * Also used to log elements, whose proxies would otherwise look the element up first.
+	 */
+	static String describe(WebElement element) {
+		if (element == null) {
+			return "";
+		}
+		if (Proxy.isProxyClass(element.getClass())) {
+			InvocationHandler handler = Proxy.getInvocationHandler(element);
+			try {
+				Field locator = handler.getClass().getDeclaredField("locator");
+				locator.setAccessible(true);
+				return String.valueOf(locator.get(handler));
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				return handler.getClass().getSimpleName();
+			}
+		}
+		return element.toString();
+	}
+}
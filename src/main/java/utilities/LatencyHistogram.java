@@ -0,0 +1,116 @@
+package utilities;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram records durations in microseconds into log-linear buckets, in the style of
+ * HdrHistogram: values below 32 microseconds are exact and every power of two above is split
+ * into 16 buckets, so any percentile is accurate to about 6%. Recording is lock-free.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+	private static final int EXACTBUCKETS = 32;
+	private static final int SUBBUCKETS = 16;
+	private static final int SUBBUCKETBITS = 4;
+	private static final int FIRSTEXPONENT = 5;
+	private static final int BUCKETS = EXACTBUCKETS + (63 - FIRSTEXPONENT) * SUBBUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Records one duration.
+	 *
+	 * @param micros The duration in microseconds; negative values are recorded as 0
+	 */
+	public void record(long micros) {
+		long value = Math.max(0, micros);
+		counts.incrementAndGet(bucket(value));
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return The sum of all recorded durations in microseconds
+	 */
+	public long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * @return The largest recorded duration in microseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns the duration below which the given share of recorded values fall.
+	 *
+	 * @param percentile The percentile between 0 and 100
+	 * @return The upper bound of the bucket holding the percentile, in microseconds
+	 */
+	public long getPercentile(double percentile) {
+		long total = getCount();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Returns how many recorded durations are at most the given value. Used for cumulative
+	 * histogram exports; exact at bucket boundaries.
+	 *
+	 * @param micros The upper bound in microseconds
+	 * @return The number of recorded values in buckets ending at or below the bound
+	 */
+	public long getCountAtOrBelow(long micros) {
+		long below = 0;
+		for (int i = 0; i < BUCKETS && upperBound(i) - 1 <= micros; i++) {
+			below += counts.get(i);
+		}
+		return below;
+	}
+
+	private static int bucket(long value) {
+		if (value < EXACTBUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) ((value >>> (exponent - SUBBUCKETBITS)) & (SUBBUCKETS - 1));
+		return EXACTBUCKETS + (exponent - FIRSTEXPONENT) * SUBBUCKETS + subBucket;
+	}
+
+	/**
+	 * Exclusive upper bound of a bucket.
+	 */
+	private static long upperBound(int bucket) {
+		if (bucket < EXACTBUCKETS) {
+			return bucket + 1L;
+		}
+		int exponent = FIRSTEXPONENT + (bucket - EXACTBUCKETS) / SUBBUCKETS;
+		int subBucket = (bucket - EXACTBUCKETS) % SUBBUCKETS;
+		return (long) (SUBBUCKETS + subBucket + 1) << (exponent - SUBBUCKETBITS);
+	}
+}
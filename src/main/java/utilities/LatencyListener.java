@@ -0,0 +1,71 @@
+package utilities;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+/**
+ * LatencyListener times every call made through a driver decorated with Selenium's
+ * EventFiringDecorator and records it in {@link DriverMetrics}.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class LatencyListener implements WebDriverListener {
+
+	/**
+	 * Start times of the calls in progress on the current thread; calls can nest, e.g. an
+	 * element call made while a wait is polling.
+	 */
+	private static final ThreadLocal<Deque<Long>> STARTS = ThreadLocal.withInitial(ArrayDeque::new);
+
+	@Override
+	public void beforeAnyCall(Object target, Method method, Object[] args) {
+		STARTS.get().push(System.nanoTime());
+	}
+
+	@Override
+	public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+		finish(target, method, args);
+	}
+
+	@Override
+	public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+		finish(target, method, args);
+	}
+
+	private void finish(Object target, Method method, Object[] args) {
+		Deque<Long> starts = STARTS.get();
+		if (starts.isEmpty()) {
+			return;
+		}
+		long elapsed = System.nanoTime() - starts.pop();
+		String command = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+		DriverMetrics.record(command, locator(target, args), elapsed);
+	}
+
+	/**
+	 * Returns the locator of a find call or of the element a call is made on.
+	 * RemoteWebElement.toString() ends with "-> strategy: value" and does not query the browser.
+	 */
+	static String locator(Object target, Object[] args) {
+		if (args != null && args.length > 0 && args[0] instanceof By) {
+			return args[0].toString();
+		}
+		if (target instanceof WebElement) {
+			String description = target.toString();
+			int arrow = description.lastIndexOf("-> ");
+			if (arrow < 0) {
+				return "";
+			}
+			String locator = description.substring(arrow + 3);
+			return locator.endsWith("]") ? locator.substring(0, locator.length() - 1) : locator;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,189 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import constants.Constant;
+
+/**
+ * PagePerformanceUtility reads the Navigation Timing and Resource Timing entries of the current
+ * page after a page-object navigation and checks them against per-URL budgets from
+ * performance-budgets.properties. Every measurement is appended to a CSV file for trend charts;
+ * budget breaches are flagged in the report or, in fail mode, fail the test.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class PagePerformanceUtility {
+
+	private static final Logger LOG = LogManager.getLogger(PagePerformanceUtility.class);
+	private static final String BUDGETRESOURCE = "/performance-budgets.properties";
+	private static final String[] METRICS = { "ttfb", "domContentLoaded", "load" };
+	private static final String CSVHEADER = "timestamp,test,path,ttfb,domContentLoaded,load,transferSize,resourceCount,resourceBytes,slowestResource,breaches";
+
+	/**
+	 * Returns the timings of the current document once its load event has finished.
+	 */
+	private static final String TIMINGSCRIPT = "var nav = performance.getEntriesByType('navigation')[0];"
+			+ "if (!nav || nav.loadEventEnd === 0) { return null; }"
+			+ "var resources = performance.getEntriesByType('resource');"
+			+ "var bytes = 0, slowest = 0;"
+			+ "for (var i = 0; i < resources.length; i++) {"
+			+ "  bytes += resources[i].transferSize || 0;"
+			+ "  slowest = Math.max(slowest, resources[i].duration);"
+			+ "}"
+			+ "return { origin: performance.timeOrigin, path: location.pathname,"
+			+ "  ttfb: nav.responseStart, domContentLoaded: nav.domContentLoadedEventEnd, load: nav.loadEventEnd,"
+			+ "  transferSize: nav.transferSize || 0, resourceCount: resources.length, resourceBytes: bytes,"
+			+ "  slowestResource: slowest };";
+
+	private static final Properties BUDGETS = loadBudgets();
+	private static final boolean FAILONBREACH = "fail"
+			.equalsIgnoreCase(System.getProperty("page.budget.mode", BUDGETS.getProperty("mode", "warn")));
+
+	/**
+	 * Time origin of the last measured document per driver, so a page is measured only once.
+	 */
+	private static final Map<WebDriver, Object> MEASURED = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private static final Map<String, LatencyHistogram> LOADTIMES = new ConcurrentHashMap<>();
+	private static final Map<String, AtomicInteger> BREACHES = new ConcurrentHashMap<>();
+
+	/**
+	 * Measures the page currently loaded in the driver and checks it against its budgets.
+	 * Pages that were already measured, and drivers without JavaScript, are skipped.
+	 *
+	 * @param driver The WebDriver instance used for automation
+	 * @throws AssertionError If a budget is exceeded and the budget mode is "fail"
+	 */
+	@SuppressWarnings("unchecked")
+	public void capture(WebDriver driver) {
+		if (!(driver instanceof JavascriptExecutor) || isHtmlUnit(driver)) {
+			return;
+		}
+		Map<String, Object> timing;
+		try {
+			timing = (Map<String, Object>) new WebDriverWait(driver, Duration.ofSeconds(WaitUtility.EXPLICITWAIT))
+					.until(d -> ((JavascriptExecutor) d).executeScript(TIMINGSCRIPT));
+		} catch (WebDriverException e) {
+			return;
+		}
+		if (timing == null || timing.get("origin").equals(MEASURED.put(driver, timing.get("origin")))) {
+			return;
+		}
+		String path = String.valueOf(timing.get("path"));
+		List<String> breaches = new ArrayList<>();
+		for (String metric : METRICS) {
+			long value = millis(timing.get(metric));
+			String budget = BUDGETS.getProperty(path + "." + metric, BUDGETS.getProperty("default." + metric));
+			if (budget != null && value > Long.parseLong(budget.trim())) {
+				breaches.add(metric + " " + value + "ms > " + budget.trim() + "ms");
+			}
+		}
+		LOADTIMES.computeIfAbsent(path, p -> new LatencyHistogram()).record(millis(timing.get("load")) * 1000);
+		BREACHES.computeIfAbsent(path, p -> new AtomicInteger()).addAndGet(breaches.size());
+		append(path, timing, breaches);
+		if (!breaches.isEmpty()) {
+			String message = "Page budget exceeded on " + path + ": " + String.join(", ", breaches);
+			FlightRecorder.record(message, null);
+			if (FAILONBREACH) {
+				throw new AssertionError(message);
+			}
+			LOG.warn(message);
+		}
+	}
+
+	/**
+	 * Returns the load time distribution and number of budget breaches of every measured page.
+	 *
+	 * @return Rows of path, samples, p50, p90 and max load in milliseconds and breaches, with a header row
+	 */
+	public static String[][] summaryTable() {
+		Map<String, LatencyHistogram> sorted = new TreeMap<>(LOADTIMES);
+		String[][] table = new String[sorted.size() + 1][];
+		table[0] = new String[] { "Page", "Samples", "p50 load ms", "p90 load ms", "Max load ms", "Budget breaches" };
+		int row = 1;
+		for (Map.Entry<String, LatencyHistogram> entry : sorted.entrySet()) {
+			LatencyHistogram histogram = entry.getValue();
+			table[row++] = new String[] { entry.getKey(), String.valueOf(histogram.getCount()),
+					String.valueOf(histogram.getPercentile(50) / 1000), String.valueOf(histogram.getPercentile(90) / 1000),
+					String.valueOf(histogram.getMax() / 1000), String.valueOf(BREACHES.get(entry.getKey()).get()) };
+		}
+		return table;
+	}
+
+	/**
+	 * @return true if no page has been measured yet
+	 */
+	public static boolean isEmpty() {
+		return LOADTIMES.isEmpty();
+	}
+
+	private static synchronized void append(String path, Map<String, Object> timing, List<String> breaches) {
+		Path file = Path.of(Constant.PAGEPERFORMANCEFILE);
+		StringBuilder line = new StringBuilder();
+		line.append(Instant.now()).append(',').append(Objects.toString(FlightRecorder.currentTestName(), "")).append(',')
+				.append(path);
+		for (String column : new String[] { "ttfb", "domContentLoaded", "load", "transferSize", "resourceCount",
+				"resourceBytes", "slowestResource" }) {
+			line.append(',').append(millis(timing.get(column)));
+		}
+		line.append(',').append(String.join(" | ", breaches)).append(System.lineSeparator());
+		try {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+			if (!Files.exists(file)) {
+				Files.write(file, (CSVHEADER + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+			}
+			Files.write(file, line.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	//HtmlUnit neither renders nor records navigation timing, there is nothing to measure
+	private static boolean isHtmlUnit(WebDriver driver) {
+		return driver instanceof HasCapabilities
+				&& "htmlunit".equalsIgnoreCase(((HasCapabilities) driver).getCapabilities().getBrowserName());
+	}
+
+	private static long millis(Object value) {
+		return value instanceof Number ? Math.round(((Number) value).doubleValue()) : 0;
+	}
+
+	private static Properties loadBudgets() {
+		Properties budgets = new Properties();
+		try (InputStream stream = PagePerformanceUtility.class.getResourceAsStream(BUDGETRESOURCE)) {
+			if (stream != null) {
+				budgets.load(stream);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return budgets;
+	}
+}
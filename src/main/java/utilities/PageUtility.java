@@ -1,5 +1,7 @@
 package utilities;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
@@ -19,6 +21,8 @@ import constants.Constant;
  */
 public class PageUtility {
 
+	private static final Logger LOG = LogManager.getLogger(PageUtility.class);
+
 	/**
 	 * Clicks on the specified WebElement.
 	 * This method performs a standard click action on the provided element.
@@ -26,6 +30,8 @@ public class PageUtility {
 	 * @param element The WebElement to be clicked
 	 */
 	public void clickOnElement(WebElement element) {
+		FlightRecorder.record("click", element);
+		LOG.debug("Clicking {}", () -> FlightRecorder.describe(element));
 		element.click();
 	}
 
@@ -38,6 +44,9 @@ public class PageUtility {
 	 * @param text The text value to be sent to the element
 	 */
 	public void sendDataToElement(WebElement element, String text) {
+		FlightRecorder.record("sendKeys", element);
+		LOG.debug("Typing {} characters into {}", () -> text == null ? 0 : text.length(),
+				() -> FlightRecorder.describe(element));//never the text, it may be a password
 		element.sendKeys(text);
 	}
 
@@ -50,6 +59,8 @@ public class PageUtility {
 	 * @param element The WebElement to scroll to and bring into view
 	 */
 	public void scrollToElement(WebDriver driver, WebElement element) {
+		FlightRecorder.record("scrollToElement", element);
+		LOG.debug("Scrolling to {}", () -> FlightRecorder.describe(element));
 		Actions actions = new Actions(driver);
 		actions.moveToElement(element).perform();
 	}
@@ -64,6 +75,8 @@ public class PageUtility {
 	 */
 	public void javaScriptClick(WebDriver driver, By locator) {
 		WebElement element = driver.findElement(locator);
+		FlightRecorder.record("javaScriptClick", element);
+		LOG.debug("Clicking {} by script", locator);
 		JavascriptExecutor js = (JavascriptExecutor) driver;
 		js.executeScript("arguments[0].click();", element);
 	}
@@ -75,6 +88,8 @@ public class PageUtility {
 	 * @param element The WebElement from which all text content will be cleared
 	 */
 	public void clearElementData(WebElement element) {
+		FlightRecorder.record("clear", element);
+		LOG.debug("Clearing {}", () -> FlightRecorder.describe(element));
 		element.clear();
 	}
 
@@ -85,6 +100,8 @@ public class PageUtility {
 	 * @param element The WebElement representing the select dropdown element
 	 */
 	public void selectData(WebElement element) {
+		FlightRecorder.record("selectByVisibleText", element);
+		LOG.debug("Selecting {} in {}", () -> Constant.ADMINNAME, () -> FlightRecorder.describe(element));
 		Select select = new Select(element);
 		select.selectByVisibleText(Constant.ADMINNAME);
 	}
@@ -97,6 +114,7 @@ public class PageUtility {
 	 * @return true if the element is displayed, false otherwise
 	 */
 	public boolean alertDisplay(WebElement element) {
+		FlightRecorder.record("isDisplayed", element);
 		return element.isDisplayed();
 	}
 }
@@ -0,0 +1,348 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * ProcessMonitor reads host and process statistics from /proc: the CPU utilisation and available
+ * memory of the host, and the resident memory and CPU time of every WebDriver service process
+ * (chromedriver, geckodriver, msedgedriver) together with the browser processes it started.
+ * On hosts without /proc the samples are empty and {@link #isSupported()} is false.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class ProcessMonitor {
+
+	private static final Logger LOG = LogManager.getLogger(ProcessMonitor.class);
+	private static final Path PROC = Paths.get("/proc");
+	/**
+	 * Process names of the WebDriver services; their descendants are the browser processes.
+	 */
+	public static final Set<String> DRIVERPROCESSES = Set.of("chromedriver", "geckodriver", "msedgedriver");
+	//USER_HZ and the page size are 100 and 4 KiB on every Linux the browsers run on
+	private static final double TICKSPERSECOND = 100;
+	private static final long PAGEKB = 4;
+
+	private long lastHostBusy;
+	private long lastHostTotal;
+	private long lastBrowserTicks;
+	private long lastSampleNanos;
+
+	/**
+	 * One process from /proc/[pid]/stat.
+	 */
+	public static final class ProcessInfo {
+		private final long pid;
+		private final long parentPid;
+		private final String name;
+		private final long rssKb;
+		private final long cpuTicks;
+
+		ProcessInfo(long pid, long parentPid, String name, long rssKb, long cpuTicks) {
+			this.pid = pid;
+			this.parentPid = parentPid;
+			this.name = name;
+			this.rssKb = rssKb;
+			this.cpuTicks = cpuTicks;
+		}
+
+		public long getPid() {
+			return pid;
+		}
+
+		public long getParentPid() {
+			return parentPid;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getRssKb() {
+			return rssKb;
+		}
+
+		/**
+		 * @return User and system CPU time of the process, in ticks of 1/100 s
+		 */
+		public long getCpuTicks() {
+			return cpuTicks;
+		}
+	}
+
+	/**
+	 * Host and browser load at one point in time. Ratios are between 0 and 1, CPU ratios averaged
+	 * since the previous sample of the same monitor; browser CPU is in cores, so 2.0 is two busy cores.
+	 */
+	public static final class Sample {
+		private final double hostCpu;
+		private final double memoryAvailable;
+		private final long memoryAvailableKb;
+		private final int driverProcesses;
+		private final int sessions;
+		private final int browserProcesses;
+		private final long browserRssKb;
+		private final double browserCpu;
+
+		Sample(double hostCpu, double memoryAvailable, long memoryAvailableKb, int driverProcesses, int sessions,
+				int browserProcesses, long browserRssKb, double browserCpu) {
+			this.hostCpu = hostCpu;
+			this.memoryAvailable = memoryAvailable;
+			this.memoryAvailableKb = memoryAvailableKb;
+			this.driverProcesses = driverProcesses;
+			this.sessions = sessions;
+			this.browserProcesses = browserProcesses;
+			this.browserRssKb = browserRssKb;
+			this.browserCpu = browserCpu;
+		}
+
+		public double getHostCpu() {
+			return hostCpu;
+		}
+
+		public double getMemoryAvailable() {
+			return memoryAvailable;
+		}
+
+		public long getMemoryAvailableKb() {
+			return memoryAvailableKb;
+		}
+
+		/**
+		 * @return Running WebDriver service processes, one per session or one for all sessions sharing a service
+		 */
+		public int getDriverProcesses() {
+			return driverProcesses;
+		}
+
+		/**
+		 * @return Browsers started directly by a WebDriver service, one per open browser session
+		 */
+		public int getSessions() {
+			return sessions;
+		}
+
+		/**
+		 * @return Processes started by the WebDriver services, the browsers and their renderers
+		 */
+		public int getBrowserProcesses() {
+			return browserProcesses;
+		}
+
+		/**
+		 * @return Resident memory of the WebDriver services and their browser processes together
+		 */
+		public long getBrowserRssKb() {
+			return browserRssKb;
+		}
+
+		public double getBrowserCpu() {
+			return browserCpu;
+		}
+	}
+
+	/**
+	 * @return True if this host has a readable /proc
+	 */
+	public static boolean isSupported() {
+		return Files.isReadable(PROC.resolve("stat")) && Files.isReadable(PROC.resolve("meminfo"));
+	}
+
+	/**
+	 * Samples the host and the browser processes. The CPU ratios of the first sample are averages
+	 * since boot and since the processes started.
+	 *
+	 * @return The sample, all zero where /proc is not available
+	 */
+	public synchronized Sample sample() {
+		if (!isSupported()) {
+			return new Sample(0, 1, 0, 0, 0, 0, 0, 0);
+		}
+		long now = System.nanoTime();
+		double hostCpu = 0;
+		long[] cpu = hostCpuTicks();
+		if (cpu != null) {
+			long busy = cpu[0] - lastHostBusy;
+			long total = cpu[1] - lastHostTotal;
+			hostCpu = total <= 0 ? 0 : (double) busy / total;
+			lastHostBusy = cpu[0];
+			lastHostTotal = cpu[1];
+		}
+		Map<String, Long> memory = memoryInfoKb();
+		long totalKb = memory.getOrDefault("MemTotal", 0L);
+		long availableKb = memory.getOrDefault("MemAvailable", memory.getOrDefault("MemFree", 0L));
+		Set<Long> drivers = new HashSet<>();
+		long rssKb = 0;
+		long ticks = 0;
+		List<ProcessInfo> tree = browserProcesses();
+		for (ProcessInfo process : tree) {
+			if (DRIVERPROCESSES.contains(process.getName())) {
+				drivers.add(process.getPid());
+			}
+			rssKb += process.getRssKb();
+			ticks += process.getCpuTicks();
+		}
+		int sessions = 0;
+		for (ProcessInfo process : tree) {
+			if (drivers.contains(process.getParentPid()) && !drivers.contains(process.getPid())) {
+				sessions++;//a browser's own processes are its descendants, not the driver's children
+			}
+		}
+		double browserCpu = 0;
+		if (lastSampleNanos != 0 && now > lastSampleNanos) {
+			//processes that exited since the last sample take their ticks with them
+			browserCpu = Math.max(0, ticks - lastBrowserTicks) / TICKSPERSECOND / ((now - lastSampleNanos) / 1e9);
+		}
+		lastBrowserTicks = ticks;
+		lastSampleNanos = now;
+		return new Sample(hostCpu, totalKb == 0 ? 1 : (double) availableKb / totalKb, availableKb, drivers.size(),
+				sessions, tree.size() - drivers.size(), rssKb, browserCpu);
+	}
+
+	/**
+	 * @return The WebDriver service processes and all of their descendants
+	 */
+	public static List<ProcessInfo> browserProcesses() {
+		Map<Long, ProcessInfo> processes = processes();
+		Map<Long, List<ProcessInfo>> children = childrenByParent(processes);
+		List<ProcessInfo> tree = new ArrayList<>();
+		for (ProcessInfo process : processes.values()) {
+			if (DRIVERPROCESSES.contains(process.getName())) {
+				collect(process, children, tree);
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * @param pid A process of this host
+	 * @return The process and all of its descendants, empty if it is not running
+	 */
+	public static List<ProcessInfo> processTree(long pid) {
+		Map<Long, ProcessInfo> processes = processes();
+		Map<Long, List<ProcessInfo>> children = childrenByParent(processes);
+		List<ProcessInfo> tree = new ArrayList<>();
+		ProcessInfo root = processes.get(pid);
+		if (root != null) {
+			collect(root, children, tree);
+		}
+		return tree;
+	}
+
+	/**
+	 * @return Every process of this host by pid, empty where /proc is not available
+	 */
+	public static Map<Long, ProcessInfo> processes() {
+		Map<Long, ProcessInfo> processes = new HashMap<>();
+		if (!Files.isDirectory(PROC)) {
+			return processes;
+		}
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(PROC, "[0-9]*")) {
+			for (Path entry : entries) {
+				ProcessInfo process = readStat(entry);
+				if (process != null) {
+					processes.put(process.getPid(), process);
+				}
+			}
+		} catch (IOException e) {
+			LOG.warn("Processes could not be listed from {}: {}", PROC, e.toString());
+		}
+		return processes;
+	}
+
+	/**
+	 * @param pid A process of this host
+	 * @return Its command line arguments, empty if it has exited or is not readable
+	 */
+	public static List<String> commandLine(long pid) {
+		List<String> arguments = new ArrayList<>();
+		try {
+			byte[] bytes = Files.readAllBytes(PROC.resolve(Long.toString(pid)).resolve("cmdline"));
+			int start = 0;
+			for (int i = 0; i < bytes.length; i++) {
+				if (bytes[i] == 0) {
+					arguments.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+					start = i + 1;
+				}
+			}
+		} catch (IOException e) {
+			//exited in the meantime
+		}
+		return arguments;
+	}
+
+	private static Map<Long, List<ProcessInfo>> childrenByParent(Map<Long, ProcessInfo> processes) {
+		Map<Long, List<ProcessInfo>> children = new HashMap<>();
+		for (ProcessInfo process : processes.values()) {
+			children.computeIfAbsent(process.getParentPid(), pid -> new ArrayList<>()).add(process);
+		}
+		return children;
+	}
+
+	private static void collect(ProcessInfo process, Map<Long, List<ProcessInfo>> children, List<ProcessInfo> tree) {
+		tree.add(process);
+		for (ProcessInfo child : children.getOrDefault(process.getPid(), List.of())) {
+			collect(child, children, tree);
+		}
+	}
+
+	//pid (comm) state ppid ... utime stime ... rss; comm may itself contain spaces and parentheses
+	private static ProcessInfo readStat(Path entry) {
+		try {
+			String stat = new String(Files.readAllBytes(entry.resolve("stat")), StandardCharsets.UTF_8);
+			int open = stat.indexOf('(');
+			int close = stat.lastIndexOf(')');
+			String[] fields = stat.substring(close + 2).trim().split(" ");
+			return new ProcessInfo(Long.parseLong(stat.substring(0, open).trim()), Long.parseLong(fields[1]),
+					stat.substring(open + 1, close), Long.parseLong(fields[21]) * PAGEKB,
+					Long.parseLong(fields[11]) + Long.parseLong(fields[12]));
+		} catch (IOException | RuntimeException e) {
+			return null;//exited while being read, or not a process
+		}
+	}
+
+	//Busy and total ticks of all CPUs from the first line of /proc/stat
+	private static long[] hostCpuTicks() {
+		try {
+			String line = Files.readAllLines(PROC.resolve("stat"), StandardCharsets.UTF_8).get(0);
+			String[] fields = line.trim().split("\\s+");
+			long total = 0;
+			for (int i = 1; i < fields.length && i <= 8; i++) {
+				total += Long.parseLong(fields[i]);//user nice system idle iowait irq softirq steal
+			}
+			long idle = Long.parseLong(fields[4]) + Long.parseLong(fields[5]);
+			return new long[] { total - idle, total };
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static Map<String, Long> memoryInfoKb() {
+		Map<String, Long> memory = new HashMap<>();
+		try {
+			for (String line : Files.readAllLines(PROC.resolve("meminfo"), StandardCharsets.UTF_8)) {
+				String[] fields = line.split(":\\s*|\\s+");
+				if (fields.length >= 2) {
+					memory.put(fields[0], Long.parseLong(fields[1]));
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Memory could not be read from /proc/meminfo: {}", e.toString());
+		}
+		return memory;
+	}
+}
@@ -0,0 +1,405 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.remote.service.DriverService;
+
+import constants.Constant;
+
+/**
+ * ProcessReaper keeps track of the driver service process of every browser session and the browser
+ * processes it starts, and kills whatever is still running when the session ends: after quit, when
+ * the session outlives -Dreaper.session.timeout.minutes, and on JVM shutdown. The processes are
+ * also written to a registry file of this JVM, so that the next run sweeps the leftovers of a JVM
+ * that was killed. Sessions are bound to the thread that started them. A driver service shared by
+ * many sessions lives until it is unshared or the JVM exits; each of its sessions owns only the
+ * browser it started. Sweeps at suite start from
+ * TestNGBase, or standalone:
+ *
+ * <pre>
+ * java -cp ... utilities.ProcessReaper
+ * </pre>
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class ProcessReaper {
+
+	private static final Logger LOG = LogManager.getLogger(ProcessReaper.class);
+	private static final long SESSIONTIMEOUTMINUTES = Long.getLong("reaper.session.timeout.minutes", 30);
+	//How long the browser gets to exit by itself after quit before it counts as leaked
+	private static final long GRACEMILLIS = Long.getLong("reaper.grace.ms", 2000);
+	//Driver services of this user whose JVM is gone are killed at startup even when no registry file lists them
+	private static final boolean SWEEPORPHANS = Boolean.getBoolean("reaper.sweep.orphans");
+	private static final String AFTERQUIT = "Left running after quit";
+	private static final String TIMEOUT = "Killed on session timeout";
+	private static final String EARLIERRUNS = "Swept from earlier runs";
+	private static final String SHUTDOWN = "Killed at JVM exit";
+
+	private static final ProcessHandle JVM = ProcessHandle.current();
+	private static final Path REGISTRY = Paths.get(Constant.PROCESSREGISTRYFOLDER,
+			JVM.pid() + "-" + startMillis(JVM) + ".tsv");
+	private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+	private static final Set<Session> ACTIVE = ConcurrentHashMap.newKeySet();
+	private static final Map<DriverService, ProcessHandle> SHARED = new ConcurrentHashMap<>();
+	private static final Map<String, long[]> KILLED = new LinkedHashMap<>();
+	private static int sessions;
+	private static ScheduledExecutorService watchdog;
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(ProcessReaper::shutdown, "process-reaper"));
+	}
+
+	/**
+	 * The processes of one browser session.
+	 */
+	private static final class Session {
+		final String test;
+		final long started = System.nanoTime();
+		final Map<Long, ProcessHandle> processes = new ConcurrentHashMap<>();
+
+		Session(String test) {
+			this.test = test;
+		}
+	}
+
+	public static void main(String[] args) {
+		int swept = sweep();
+		System.out.println("Killed " + swept + " browser and driver processes left behind by earlier runs");
+	}
+
+	/**
+	 * Binds the process of a started driver service to the current thread's session.
+	 *
+	 * @param service A running driver service started by this JVM
+	 * @param test    The test the session belongs to
+	 */
+	public static void track(DriverService service, String test) {
+		release();//a session the thread never released, e.g. after its test hung
+		Session session = new Session(test);
+		Optional<ProcessHandle> process = processOf(service);
+		if (process.isEmpty()) {
+			LOG.warn("No process found for the driver service on {}, it is not tracked", service.getUrl());
+			return;
+		}
+		session.processes.put(process.get().pid(), process.get());
+		begin(session);
+	}
+
+	/**
+	 * Keeps the process of a started driver service that many sessions share until
+	 * {@link #unshare(DriverService)} or JVM exit; its sessions are tracked with
+	 * {@link #trackBrowser(DriverService, String, String)}.
+	 *
+	 * @param service A running driver service started by this JVM
+	 */
+	public static void share(DriverService service) {
+		Optional<ProcessHandle> process = processOf(service);
+		if (process.isEmpty()) {
+			LOG.warn("No process found for the shared driver service on {}, it is not tracked", service.getUrl());
+			return;
+		}
+		SHARED.put(service, process.get());
+		register(List.of(process.get()), "shared driver service");
+	}
+
+	/**
+	 * Stops keeping a shared driver service, once it was stopped or has died.
+	 *
+	 * @param service A service passed to {@link #share(DriverService)}
+	 */
+	public static void unshare(DriverService service) {
+		SHARED.remove(service);
+	}
+
+	/**
+	 * Binds the browser a shared driver service started for the current thread's session, recognised
+	 * by an argument that only this browser was started with, e.g. its --user-data-dir.
+	 *
+	 * @param service  A service passed to {@link #share(DriverService)}
+	 * @param argument The full argument of the browser process
+	 * @param test     The test the session belongs to
+	 */
+	public static void trackBrowser(DriverService service, String argument, String test) {
+		release();
+		ProcessHandle driver = SHARED.get(service);
+		if (driver == null || argument == null) {
+			LOG.warn("Browser of {} on the driver service on {} is not tracked", test, service.getUrl());
+			return;
+		}
+		Session session = new Session(test);
+		driver.children().filter(child -> hasArgument(child, argument))
+				.forEach(child -> session.processes.put(child.pid(), child));
+		if (session.processes.isEmpty()) {
+			LOG.warn("No browser process with {} found for {}, it is not tracked", argument, test);
+			return;
+		}
+		begin(session);
+	}
+
+	/**
+	 * Adds the browser processes the current thread's driver service has started to its session, so
+	 * that they are found even if the driver service dies first.
+	 */
+	public static void browserStarted() {
+		Session session = CURRENT.get();
+		if (session == null) {
+			return;
+		}
+		List<ProcessHandle> browsers = new ArrayList<>();
+		for (ProcessHandle process : List.copyOf(session.processes.values())) {
+			process.descendants().filter(child -> session.processes.putIfAbsent(child.pid(), child) == null)
+					.forEach(browsers::add);
+		}
+		register(browsers, session.test);
+	}
+
+	/**
+	 * Ends the current thread's session: whatever is still running of it after a short grace period
+	 * is killed and counted as leaked. Call after quitting the driver, or instead of it when the
+	 * driver could not be created.
+	 *
+	 * @return The number of processes killed
+	 */
+	public static int release() {
+		Session session = CURRENT.get();
+		if (session == null) {
+			return 0;
+		}
+		CURRENT.remove();
+		ACTIVE.remove(session);
+		long deadline = System.currentTimeMillis() + GRACEMILLIS;
+		for (ProcessHandle process : tree(session.processes.values())) {
+			try {
+				process.onExit().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				break;//the rest is killed below
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException e) {
+				//onExit does not complete exceptionally
+			}
+		}
+		return kill(session.processes.values(), AFTERQUIT, session.test);
+	}
+
+	/**
+	 * Kills the processes listed by the registry files of JVMs that are no longer running, and, with
+	 * -Dreaper.sweep.orphans=true, driver services of the current user that were left without a parent.
+	 * Leave it off on hosts shared with other test runs, whose drivers it cannot tell apart.
+	 *
+	 * @return The number of processes killed
+	 */
+	public static int sweep() {
+		List<ProcessHandle> leftovers = new ArrayList<>();
+		Path folder = Paths.get(Constant.PROCESSREGISTRYFOLDER);
+		if (Files.isDirectory(folder)) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*.tsv")) {
+				for (Path file : files) {
+					if (!file.equals(REGISTRY) && !isAlive(file.getFileName().toString().replace(".tsv", ""))) {
+						for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+							String[] fields = line.split("\t", 4);
+							if (fields.length == 4) {
+								find(Long.parseLong(fields[0]), Long.parseLong(fields[1])).ifPresent(leftovers::add);
+							}
+						}
+						Files.delete(file);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				LOG.warn("Process registry could not be swept in {}: {}", folder, e.toString());
+			}
+		}
+		if (SWEEPORPHANS) {
+			ProcessHandle.allProcesses().filter(ProcessReaper::isOrphanedDriver).forEach(leftovers::add);
+		}
+		return kill(leftovers, EARLIERRUNS, "earlier run");
+	}
+
+	/**
+	 * @return True if no session was tracked and nothing was swept
+	 */
+	public static synchronized boolean isEmpty() {
+		return sessions == 0 && KILLED.isEmpty();
+	}
+
+	/**
+	 * @return The leaked processes killed by this JVM and the memory they held; the first row is the header
+	 */
+	public static synchronized String[][] summaryTable() {
+		String[] reasons = { AFTERQUIT, TIMEOUT, EARLIERRUNS };
+		String[][] table = new String[reasons.length + 2][];
+		table[0] = new String[] { "Measure", "Processes", "Memory reclaimed" };
+		table[1] = new String[] { "Browser sessions tracked", String.valueOf(sessions), "" };
+		for (int i = 0; i < reasons.length; i++) {
+			long[] killed = KILLED.getOrDefault(reasons[i], new long[2]);
+			table[i + 2] = new String[] { reasons[i], String.valueOf(killed[0]), killed[1] / 1024 + " MB" };
+		}
+		return table;
+	}
+
+	//Kills the processes with all of their descendants and accounts for them under the reason
+	private static int kill(Iterable<ProcessHandle> processes, String reason, String test) {
+		List<ProcessHandle> alive = tree(processes);
+		if (alive.isEmpty()) {
+			return 0;
+		}
+		Map<Long, ProcessMonitor.ProcessInfo> info = ProcessMonitor.processes();
+		int count = 0;
+		long rssKb = 0;
+		for (ProcessHandle process : alive) {
+			ProcessMonitor.ProcessInfo stat = info.get(process.pid());
+			if (process.destroyForcibly()) {
+				count++;
+				rssKb += stat == null ? 0 : stat.getRssKb();
+			} else {
+				LOG.warn("{}: process {} of {} could not be killed", reason, process.pid(), test);
+			}
+		}
+		if (count == 0) {
+			return 0;
+		}
+		synchronized (ProcessReaper.class) {
+			long[] killed = KILLED.computeIfAbsent(reason, key -> new long[2]);
+			killed[0] += count;
+			killed[1] += rssKb;
+		}
+		LOG.warn("{}: killed {} processes of {}, {} MB", reason, count, test, rssKb / 1024);
+		return count;
+	}
+
+	//The live processes and their live descendants, each once
+	private static List<ProcessHandle> tree(Iterable<ProcessHandle> processes) {
+		Map<Long, ProcessHandle> tree = new LinkedHashMap<>();
+		for (ProcessHandle process : processes) {
+			if (process.isAlive()) {
+				tree.putIfAbsent(process.pid(), process);
+				process.descendants().forEach(child -> tree.putIfAbsent(child.pid(), child));
+			}
+		}
+		return new ArrayList<>(tree.values());
+	}
+
+	//Makes the session the current thread's and writes its processes to the registry
+	private static void begin(Session session) {
+		CURRENT.set(session);
+		ACTIVE.add(session);
+		synchronized (ProcessReaper.class) {
+			sessions++;
+			startWatchdog();
+		}
+		register(session.processes.values(), session.test);
+	}
+
+	//The child process of this JVM serving the driver service, found by its port argument
+	private static Optional<ProcessHandle> processOf(DriverService service) {
+		String portArgument = "--port=" + service.getUrl().getPort();
+		return JVM.children().filter(child -> hasArgument(child, portArgument)).findFirst();
+	}
+
+	private static boolean hasArgument(ProcessHandle process, String argument) {
+		return process.info().arguments().map(arguments -> List.of(arguments).contains(argument)).orElse(false);
+	}
+
+	private static synchronized void register(Iterable<ProcessHandle> processes, String test) {
+		StringBuilder lines = new StringBuilder();
+		for (ProcessHandle process : processes) {
+			lines.append(process.pid()).append('\t').append(startMillis(process)).append('\t')
+					.append(process.info().command().map(command -> Paths.get(command).getFileName().toString()).orElse("?"))
+					.append('\t').append(test).append('\n');
+		}
+		if (lines.length() == 0) {
+			return;
+		}
+		try {
+			Files.createDirectories(REGISTRY.getParent());
+			Files.write(REGISTRY, lines.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Browser processes could not be registered in " + REGISTRY, e);
+		}
+	}
+
+	private static void startWatchdog() {
+		if (watchdog != null) {
+			return;
+		}
+		watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "process-reaper-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		watchdog.scheduleWithFixedDelay(() -> {
+			long now = System.nanoTime();
+			for (Session session : ACTIVE) {
+				if (now - session.started > TimeUnit.MINUTES.toNanos(SESSIONTIMEOUTMINUTES) && ACTIVE.remove(session)) {
+					kill(session.processes.values(), TIMEOUT, session.test);//the hung test fails on its next command
+				}
+			}
+		}, 30, 30, TimeUnit.SECONDS);
+	}
+
+	private static void shutdown() {
+		for (Session session : ACTIVE) {
+			kill(session.processes.values(), SHUTDOWN, session.test);
+		}
+		kill(SHARED.values(), SHUTDOWN, "shared driver service");
+		try {
+			Files.deleteIfExists(REGISTRY);
+		} catch (IOException e) {
+			//swept by the next run
+		}
+	}
+
+	//A registry file name is the pid and start time of the JVM that wrote it
+	private static boolean isAlive(String jvm) {
+		String[] fields = jvm.split("-");
+		try {
+			return find(Long.parseLong(fields[0]), Long.parseLong(fields[1])).isPresent();
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	//The process with this pid, unless the pid was reused by a process started at another time
+	private static Optional<ProcessHandle> find(long pid, long startMillis) {
+		return ProcessHandle.of(pid).filter(process -> startMillis(process) == startMillis);
+	}
+
+	//A driver service of the current user whose parent is known to be gone; anything unreadable is left alone
+	private static boolean isOrphanedDriver(ProcessHandle process) {
+		ProcessHandle.Info info = process.info();
+		boolean driver = info.command()
+				.map(command -> ProcessMonitor.DRIVERPROCESSES.contains(Paths.get(command).getFileName().toString()))
+				.orElse(false);
+		return driver && info.user().isPresent() && info.user().equals(JVM.info().user())
+				&& process.parent().map(parent -> parent.pid() == 1).orElse(false);
+	}
+
+	private static long startMillis(ProcessHandle process) {
+		return process.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+	}
+}
@@ -0,0 +1,442 @@
+package utilities;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * ScreenshotStore keeps screenshots content-addressed so repeated failures do not grow the
+ * screenshot folder without bound.
+ * Every image is identified by the SHA-256 of its decoded pixels and stored once. An image that
+ * differs from the latest full frame of the same size only in a small region is stored as that
+ * region plus an offset against the full frame. Full frames are re-encoded with maximum PNG
+ * compression, which is lossless. An index file maps every capture (timestamp and test name)
+ * to its blob and is trimmed by age and total size whenever the store is opened. A diff is only
+ * composed into a full PNG in the view folder when a report links it; views are a cache, trimmed
+ * by the same size limit whenever one is rendered and dropped once no report has linked them for
+ * a day.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class ScreenshotStore {
+
+	/**
+	 * Largest share of the image a changed region may cover to be stored as a diff.
+	 */
+	private static final double DIFFAREARATIO = 0.3;
+
+	/**
+	 * How long a rendered view is kept after it was last linked.
+	 */
+	private static final Duration VIEWMAXAGE = Duration.ofDays(1);
+
+	private static final String INDEXFILE = "index.tsv";
+	private static final String FULL = "full";
+	private static final String DIFF = "diff";
+
+	private final File blobFolder;
+	private final File viewFolder;
+	private final File indexFile;
+	private final Duration maxAge;
+	private final long maxBytes;
+
+	/**
+	 * Captures in index order, oldest first.
+	 */
+	private final List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * Blob metadata by hash.
+	 */
+	private final Map<String, Entry> blobs = new HashMap<>();
+
+	/**
+	 * Hash of the most recent full frame for each image size, used as the diff base.
+	 */
+	private final Map<String, String> latestFullFrame = new HashMap<>();
+
+	/**
+	 * Decoded full frames kept in memory to avoid re-reading the diff base from disk.
+	 */
+	private final Map<String, BufferedImage> decodedFrames = new LinkedHashMap<>(4, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+			return size() > 2;
+		}
+	};
+
+	/**
+	 * One line of the index: a capture and the blob it resolved to.
+	 */
+	private static final class Entry {
+		final Instant timestamp;
+		final String testName;
+		final String hash;
+		final String kind;
+		final String base;
+		final int x;
+		final int y;
+		final int width;
+		final int height;
+
+		Entry(Instant timestamp, String testName, String hash, String kind, String base, int x, int y, int width,
+				int height) {
+			this.timestamp = timestamp;
+			this.testName = testName;
+			this.hash = hash;
+			this.kind = kind;
+			this.base = base;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+
+		Entry withCapture(Instant captured, String test) {
+			return new Entry(captured, test, hash, kind, base, x, y, width, height);
+		}
+
+		String toLine() {
+			return String.join("\t", timestamp.toString(), testName, hash, kind, base, String.valueOf(x),
+					String.valueOf(y), String.valueOf(width), String.valueOf(height));
+		}
+
+		static Entry fromLine(String line) {
+			String[] fields = line.split("\t");
+			return new Entry(Instant.parse(fields[0]), fields[1], fields[2], fields[3], fields[4],
+					Integer.parseInt(fields[5]), Integer.parseInt(fields[6]), Integer.parseInt(fields[7]),
+					Integer.parseInt(fields[8]));
+		}
+	}
+
+	/**
+	 * Opens the store in the given folder and applies the retention limits to what is already there.
+	 *
+	 * @param folder The folder holding the index and blobs
+	 * @param maxAge Captures older than this are removed from the index
+	 * @param maxBytes Upper bound for the total size of blobs and rendered views
+	 */
+	public ScreenshotStore(File folder, Duration maxAge, long maxBytes) {
+		this.blobFolder = new File(folder, "blobs");
+		this.viewFolder = new File(folder, "view");
+		this.indexFile = new File(folder, INDEXFILE);
+		this.maxAge = maxAge;
+		this.maxBytes = maxBytes;
+		try {
+			Files.createDirectories(blobFolder.toPath());
+			Files.createDirectories(viewFolder.toPath());
+			loadIndex();
+			applyRetention();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Adds a PNG screenshot to the store. Identical images share one blob; near-duplicates are
+	 * stored as a diff. Nothing is rendered; see {@link #view(String)}.
+	 *
+	 * @param png The PNG bytes as returned by the browser
+	 * @param testName The name of the test the screenshot belongs to
+	 * @return The hash identifying the screenshot in the store
+	 * @throws IOException If the image cannot be decoded or written
+	 */
+	public synchronized String store(byte[] png, String testName) throws IOException {
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+		if (image == null) {
+			throw new IOException("Screenshot is not a readable image");
+		}
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		String hash = hash(width, height, pixels);
+		String test = testName.replaceAll("[\\t\\r\\n]", "_");
+		Instant now = Instant.now();
+
+		Entry known = blobs.get(hash);
+		if (known != null) {
+			return append(known.withCapture(now, test));
+		}
+
+		String sizeKey = width + "x" + height;
+		String baseHash = latestFullFrame.get(sizeKey);
+		BufferedImage base = baseHash == null ? null : loadFullFrame(baseHash);
+		int[] region = base == null ? null : changedRegion(base, pixels, width, height);
+		if (region != null && (double) region[2] * region[3] <= DIFFAREARATIO * width * height) {
+			BufferedImage diff = image.getSubimage(region[0], region[1], region[2], region[3]);
+			Files.write(blobFile(hash, DIFF).toPath(), encode(diff));
+			return append(new Entry(now, test, hash, DIFF, baseHash, region[0], region[1], width, height));
+		}
+
+		byte[] recompressed = encode(image);
+		Files.write(blobFile(hash, FULL).toPath(), recompressed.length < png.length ? recompressed : png);
+		decodedFrames.put(hash, image);
+		return append(new Entry(now, test, hash, FULL, "-", 0, 0, width, height));
+	}
+
+	/**
+	 * Returns a full PNG file showing a stored screenshot, for a report to link. Full frames are
+	 * their own blob; a diff is composed against its base frame the first time it is asked for.
+	 *
+	 * @param hash The hash returned by {@link #store(byte[], String)}
+	 * @return A full PNG file showing the screenshot
+	 * @throws IOException If the screenshot is no longer in the store or cannot be rendered
+	 */
+	public synchronized File view(String hash) throws IOException {
+		Entry entry = blobs.get(hash);
+		if (entry == null) {
+			throw new IOException("Screenshot " + hash + " is not in the store");
+		}
+		if (FULL.equals(entry.kind)) {
+			return blobFile(entry.hash, FULL);
+		}
+		File view = new File(viewFolder, entry.hash + ".png");
+		if (view.exists()) {
+			view.setLastModified(System.currentTimeMillis());//linked again, kept for another day
+		} else {
+			BufferedImage base = loadFullFrame(entry.base);
+			BufferedImage composed = new BufferedImage(entry.width, entry.height,
+					base.getType() == BufferedImage.TYPE_CUSTOM ? BufferedImage.TYPE_INT_ARGB : base.getType());
+			Graphics2D graphics = composed.createGraphics();
+			graphics.drawImage(base, 0, 0, null);
+			graphics.drawImage(ImageIO.read(blobFile(entry.hash, DIFF)), entry.x, entry.y, null);
+			graphics.dispose();
+			Files.write(view.toPath(), encode(composed));
+			trimViews(view);
+		}
+		return view;
+	}
+
+	private String append(Entry entry) throws IOException {
+		entries.add(entry);
+		blobs.putIfAbsent(entry.hash, entry);
+		if (FULL.equals(entry.kind)) {
+			latestFullFrame.put(entry.width + "x" + entry.height, entry.hash);
+		}
+		Files.write(indexFile.toPath(), (entry.toLine() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		return entry.hash;
+	}
+
+	private void loadIndex() throws IOException {
+		if (!indexFile.exists()) {
+			return;
+		}
+		for (String line : Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8)) {
+			if (line.isBlank()) {
+				continue;
+			}
+			Entry entry = Entry.fromLine(line);
+			if (blobFile(entry.hash, entry.kind).exists()) {
+				entries.add(entry);
+				blobs.putIfAbsent(entry.hash, entry);
+				if (FULL.equals(entry.kind)) {
+					latestFullFrame.put(entry.width + "x" + entry.height, entry.hash);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drops views nobody linked lately, captures older than the maximum age, then the oldest
+	 * captures until the blobs fit the size limit, and deletes every blob and view no remaining
+	 * capture refers to.
+	 */
+	private void applyRetention() throws IOException {
+		trimViews(null);
+		Instant cutoff = Instant.now().minus(maxAge);
+		entries.removeIf(entry -> entry.timestamp.isBefore(cutoff));
+		Set<String> referenced = deleteUnreferenced();
+		while (!entries.isEmpty() && folderSize() > maxBytes) {
+			entries.subList(0, Math.max(1, entries.size() / 10)).clear();
+			referenced = deleteUnreferenced();
+		}
+		blobs.keySet().retainAll(referenced);
+		latestFullFrame.values().retainAll(referenced);
+		File rewritten = new File(indexFile.getParentFile(), INDEXFILE + ".tmp");
+		StringBuilder index = new StringBuilder();
+		for (Entry entry : entries) {
+			index.append(entry.toLine()).append(System.lineSeparator());
+		}
+		Files.write(rewritten.toPath(), index.toString().getBytes(StandardCharsets.UTF_8));
+		Files.move(rewritten.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private Set<String> deleteUnreferenced() {
+		Set<String> referenced = new HashSet<>();
+		for (Entry entry : entries) {
+			referenced.add(entry.hash);
+			if (DIFF.equals(entry.kind)) {
+				referenced.add(entry.base);
+			}
+		}
+		for (File folder : new File[] { blobFolder, viewFolder }) {
+			File[] files = folder.listFiles();
+			if (files == null) {
+				continue;
+			}
+			for (File file : files) {
+				String name = file.getName();
+				String hash = name.substring(0, name.indexOf('.') < 0 ? name.length() : name.indexOf('.'));
+				if (!referenced.contains(hash)) {
+					file.delete();
+				}
+			}
+		}
+		for (Iterator<String> it = decodedFrames.keySet().iterator(); it.hasNext();) {
+			if (!referenced.contains(it.next())) {
+				it.remove();
+			}
+		}
+		return referenced;
+	}
+
+	/**
+	 * Deletes views not linked within the view age, then the least recently linked views until the
+	 * store fits the size limit. The view just rendered is kept.
+	 */
+	private void trimViews(File keep) {
+		File[] views = viewFolder.listFiles();
+		if (views == null) {
+			return;
+		}
+		long cutoff = System.currentTimeMillis() - VIEWMAXAGE.toMillis();
+		List<File> remaining = new ArrayList<>();
+		for (File view : views) {
+			if (!view.equals(keep) && view.lastModified() < cutoff) {
+				view.delete();
+			} else if (!view.equals(keep)) {
+				remaining.add(view);
+			}
+		}
+		remaining.sort(Comparator.comparingLong(File::lastModified));
+		long size = folderSize();
+		for (Iterator<File> it = remaining.iterator(); it.hasNext() && size > maxBytes;) {
+			File view = it.next();
+			long length = view.length();
+			if (view.delete()) {
+				size -= length;
+			}
+		}
+	}
+
+	private long folderSize() {
+		long size = 0;
+		for (File folder : new File[] { blobFolder, viewFolder }) {
+			File[] files = folder.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					size += file.length();
+				}
+			}
+		}
+		return size;
+	}
+
+	private BufferedImage loadFullFrame(String hash) throws IOException {
+		BufferedImage frame = decodedFrames.get(hash);
+		if (frame == null) {
+			frame = ImageIO.read(blobFile(hash, FULL));
+			decodedFrames.put(hash, frame);
+		}
+		return frame;
+	}
+
+	private File blobFile(String hash, String kind) {
+		return new File(blobFolder, DIFF.equals(kind) ? hash + ".diff.png" : hash + ".png");
+	}
+
+	/**
+	 * Returns the bounding box {x, y, width, height} of the pixels that differ from the base
+	 * frame, or null when the frames have different sizes or are identical.
+	 */
+	private static int[] changedRegion(BufferedImage base, int[] pixels, int width, int height) {
+		if (base.getWidth() != width || base.getHeight() != height) {
+			return null;
+		}
+		int[] basePixels = base.getRGB(0, 0, width, height, null, 0, width);
+		int minX = width;
+		int minY = height;
+		int maxX = -1;
+		int maxY = -1;
+		for (int y = 0; y < height; y++) {
+			int row = y * width;
+			for (int x = 0; x < width; x++) {
+				if (pixels[row + x] != basePixels[row + x]) {
+					minX = Math.min(minX, x);
+					maxX = Math.max(maxX, x);
+					minY = Math.min(minY, y);
+					maxY = y;
+				}
+			}
+		}
+		return maxX < 0 ? null : new int[] { minX, minY, maxX - minX + 1, maxY - minY + 1 };
+	}
+
+	private static String hash(int width, int height, int[] pixels) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			ByteBuffer buffer = ByteBuffer.allocate(8 + pixels.length * 4);
+			buffer.putInt(width).putInt(height).asIntBuffer().put(pixels);
+			digest.update(buffer.array());
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest.digest()) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Encodes an image as PNG at the highest deflate compression level.
+	 */
+	private static byte[] encode(BufferedImage image) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+			writer.setOutput(stream);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			if (param.canWriteCompressed()) {
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				param.setCompressionQuality(0.0f);
+			}
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return out.toByteArray();
+	}
+}
@@ -2,35 +2,146 @@ package utilities;
 
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.io.FileHandler;
 
+import constants.Constant;
+import jfr.ScreenshotCaptureEvent;
+import jfr.ScreenshotWriteEvent;
+
+/**
+ * ScreenshotUtility captures browser screenshots and writes them to disk in the background.
+ * Only the capture itself talks to the browser; storing the image is handed to a small bounded
+ * writer pool so the driver can be released as soon as the image bytes are in memory.
+ * Images are kept in a deduplicating {@link ScreenshotStore} under the screenshot folder and
+ * rendered into a linkable file with {@link #view(String)} only when a report links them.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
 public class ScreenshotUtility {
-	//syntax
-	
-	public void getScreenshot(WebDriver driver,String failedTestCase) throws IOException
-	{
-	//TakesScreenshot: Predefined class
-	TakesScreenshot scrShot = (TakesScreenshot) driver;//typecasting to driver
-	//Saves as file
-	File screenShot = scrShot.getScreenshotAs(OutputType.FILE);
-	
-	String timeStamp = new SimpleDateFormat("dd_MM_yyyy_hh_mm_ss").format(new Date());
-	File f1 = new File(System.getProperty("user.dir") + "//OutputScreenShot");//create folder in  directory
-	if (!f1.exists()) {
-	//Java file handling method to create a folder
-	f1.mkdirs();
+
+	/**
+	 * Number of background threads writing screenshots to disk.
+	 */
+	private static final int WRITERTHREADS = 2;
+
+	/**
+	 * Maximum number of screenshots waiting to be written. When the queue is full the
+	 * capturing thread writes the file itself, which keeps memory use bounded.
+	 */
+	private static final int WRITERQUEUESIZE = 32;
+
+	private static final AtomicInteger WRITERCOUNT = new AtomicInteger();
+
+	private static final ThreadPoolExecutor WRITER = new ThreadPoolExecutor(WRITERTHREADS, WRITERTHREADS, 30,
+			TimeUnit.SECONDS, new ArrayBlockingQueue<>(WRITERQUEUESIZE), runnable -> {
+				Thread thread = new Thread(runnable, "screenshot-writer-" + WRITERCOUNT.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}, new ThreadPoolExecutor.CallerRunsPolicy());
+
+	/**
+	 * Content-addressed store shared by all writer threads, opened on first use.
+	 */
+	private static ScreenshotStore store;
+
+	/**
+	 * Writes that have been submitted but have not completed yet.
+	 */
+	private static final Set<CompletableFuture<String>> PENDING = ConcurrentHashMap.newKeySet();
+
+	static {
+		WRITER.allowCoreThreadTimeOut(true);
 	}
-	String destination = System.getProperty("user.dir") + "//outputScreenShot//" + failedTestCase + timeStamp
-	+ ".png";
-	//create file
-	File finalDestination = new File(destination);
-	//copy: built-in fn 
-	FileHandler.copy(screenShot, finalDestination);
+
+	/**
+	 * Captures a screenshot of the current browser window and schedules it to be added to
+	 * the screenshot store. The method returns once the image bytes have been received from
+	 * the browser, so the driver may be quit immediately afterwards.
+	 *
+	 * @param driver The WebDriver instance to capture the screenshot from
+	 * @param failedTestCase The name of the test, used as the file name prefix
+	 * @return A future completing with the screenshot's key in the store, or exceptionally if the write failed
+	 */
+	public CompletableFuture<String> getScreenshot(WebDriver driver, String failedTestCase) {
+		ScreenshotCaptureEvent capture = new ScreenshotCaptureEvent();
+		capture.begin();
+		byte[] screenShot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+		capture.size = screenShot.length;
+		capture.testName = failedTestCase;
+		capture.commit();
+		CompletableFuture<String> write = CompletableFuture.supplyAsync(() -> writeFile(screenShot, failedTestCase),
+				WRITER);
+		PENDING.add(write);
+		write.whenComplete((file, error) -> PENDING.remove(write));
+		return write;
+	}
+
+	/**
+	 * Waits for all screenshots scheduled so far to be written to disk.
+	 * Intended to be called once at the end of a run, before the report is flushed.
+	 *
+	 * @param timeout The maximum time to wait
+	 * @return true if every pending write finished within the timeout, false otherwise
+	 */
+	public static boolean awaitPendingWrites(Duration timeout) {
+		CompletableFuture<?>[] pending = PENDING.toArray(new CompletableFuture<?>[0]);
+		try {
+			CompletableFuture.allOf(pending).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			// a failed write is reported through its own future, the others have completed
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a full PNG file of a stored screenshot, rendering it if it was stored as a diff.
+	 *
+	 * @param key The key the future of {@link #getScreenshot(WebDriver, String)} completed with
+	 * @return The file to link from a report
+	 * @throws IOException If the screenshot is no longer in the store or cannot be rendered
+	 */
+	public static File view(String key) throws IOException {
+		return getStore().view(key);
+	}
+
+	private static String writeFile(byte[] screenShot, String failedTestCase) {
+		ScreenshotWriteEvent event = new ScreenshotWriteEvent();
+		event.begin();
+		try {
+			return getStore().store(screenShot, failedTestCase);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			event.size = screenShot.length;
+			event.testName = failedTestCase;
+			event.commit();
+		}
+	}
+
+	private static synchronized ScreenshotStore getStore() {
+		if (store == null) {
+			store = new ScreenshotStore(new File(Constant.SCREENSHOTFOLDER, "store"),
+					Duration.ofDays(Constant.SCREENSHOTRETENTIONDAYS), Constant.SCREENSHOTSTOREMAXMB * 1024L * 1024L);
+		}
+		return store;
 	}
 }
@@ -0,0 +1,254 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import constants.Constant;
+
+/**
+ * TestDataTracker registers every entity a test creates in the application, tagged with the run
+ * id, in an append-only registry shared by all JVMs of a machine. Cleanup deletes the entities of
+ * the current run, plus those left behind by crashed runs once they are older than a TTL, in
+ * parallel batches with one HTTP session per batch, and then compacts the registry. Runs at suite
+ * end from TestNGBase, or standalone as a janitor:
+ *
+ * <pre>
+ * java -cp ... utilities.TestDataTracker &lt;base url&gt; &lt;username&gt; &lt;password&gt;
+ * </pre>
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class TestDataTracker {
+
+	public static final String NEWS = "news";
+	public static final String ADMIN = "admin";
+
+	private static final Logger LOG = LogManager.getLogger(TestDataTracker.class);
+	private static final String CREATED = "created";
+	private static final String DELETED = "deleted";
+	private static final int BATCHSIZE = 20;
+
+	/**
+	 * An entity that was created and not deleted yet.
+	 */
+	private static final class Entry {
+		final String runId;
+		final long created;
+		final String kind;
+		final String key;
+
+		Entry(String runId, long created, String kind, String key) {
+			this.runId = runId;
+			this.created = created;
+			this.kind = kind;
+			this.key = key;
+		}
+
+		String id() {
+			return runId + '\t' + kind + '\t' + key;
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			System.err.println("Usage: TestDataTracker <base url> <username> <password>");
+			System.exit(2);
+		}
+		int deleted = cleanup(args[0], args[1], args[2], null);
+		System.out.println("Deleted " + deleted + " test data entities from " + args[0]);
+	}
+
+	/**
+	 * Registers an entity created by the current run.
+	 *
+	 * @param kind {@link #NEWS} or {@link #ADMIN}
+	 * @param key The news text or username that identifies the entity in its list
+	 */
+	public static void register(String kind, String key) {
+		append(List.of(line(CREATED, Constant.RUNID, System.currentTimeMillis(), kind, key)));
+	}
+
+	/**
+	 * Records that entities were deleted, by any run.
+	 *
+	 * @param kind {@link #NEWS} or {@link #ADMIN}
+	 * @param keys The news texts or usernames
+	 */
+	public static void markDeleted(String kind, Collection<String> keys) {
+		Map<String, Entry> pending = pending();
+		List<String> lines = new ArrayList<>();
+		for (Entry entry : pending.values()) {
+			if (entry.kind.equals(kind) && keys.contains(entry.key)) {
+				lines.add(line(DELETED, entry.runId, entry.created, entry.kind, entry.key));
+			}
+		}
+		append(lines);
+	}
+
+	/**
+	 * Deletes the entities of a run and the orphans of other runs older than
+	 * {@link Constant#TESTDATAORPHANTTLHOURS}, then compacts the registry. Entities that were not
+	 * found or not deleted stay registered, and their number is logged.
+	 *
+	 * @param baseUrl Scheme, host and port of the application
+	 * @param username The username used to delete
+	 * @param password The password used to delete
+	 * @param runId The run whose entities are deleted regardless of age, or null for orphans only
+	 * @return The number of entities deleted
+	 */
+	public static int cleanup(String baseUrl, String username, String password, String runId) {
+		long orphanedBefore = System.currentTimeMillis() - Duration.ofHours(Constant.TESTDATAORPHANTTLHOURS).toMillis();
+		Map<String, List<String>> batches = new LinkedHashMap<>();
+		for (Entry entry : pending().values()) {
+			if (entry.runId.equals(runId) || entry.created < orphanedBefore) {
+				List<String> keys = batches.computeIfAbsent(entry.kind, kind -> new ArrayList<>());
+				if (!keys.contains(entry.key)) {
+					keys.add(entry.key);
+				}
+			}
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Constant.TESTDATACLEANUPTHREADS);
+		List<Future<Set<String>>> deletions = new ArrayList<>();
+		try {
+			for (Map.Entry<String, List<String>> kind : batches.entrySet()) {
+				List<String> keys = kind.getValue();
+				for (int start = 0; start < keys.size(); start += BATCHSIZE) {
+					List<String> batch = keys.subList(start, Math.min(keys.size(), start + BATCHSIZE));
+					deletions.add(executor.submit(() -> {
+						ApiUtility api = new ApiUtility(baseUrl).login(username, password);
+						return ADMIN.equals(kind.getKey()) ? api.deleteAdmins(batch) : api.deleteNews(batch);
+					}));
+				}
+			}
+			int deleted = 0;
+			for (Future<Set<String>> deletion : deletions) {
+				try {
+					deleted += deletion.get().size();
+				} catch (ExecutionException e) {
+					LOG.warn("Test data batch could not be deleted, it stays registered: {}", e.getCause());
+				}
+			}
+			int left = 0;
+			for (Entry entry : pending().values()) {
+				if (entry.runId.equals(runId) || entry.created < orphanedBefore) {
+					left++;
+				}
+			}
+			if (left > 0) {
+				LOG.warn("{} test data entities were not found or not deleted, they stay registered for the next cleanup",
+						left);
+			}
+			return deleted;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return 0;
+		} finally {
+			executor.shutdownNow();
+			compact();
+		}
+	}
+
+	private static Map<String, Entry> pending() {
+		return pending(read());
+	}
+
+	//Created entries without a matching deleted entry, by id
+	private static Map<String, Entry> pending(List<String> lines) {
+		Map<String, Entry> pending = new LinkedHashMap<>();
+		for (String line : lines) {
+			String[] columns = line.split("\t", 5);
+			if (columns.length != 5) {
+				continue;
+			}
+			Entry entry;
+			try {
+				entry = new Entry(columns[1], Long.parseLong(columns[2]), columns[3], columns[4]);
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			if (CREATED.equals(columns[0])) {
+				pending.put(entry.id(), entry);
+			} else {
+				pending.remove(entry.id());
+			}
+		}
+		return pending;
+	}
+
+	private static List<String> read() {
+		Path file = Path.of(Constant.TESTDATAREGISTRY);
+		try {
+			return Files.exists(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : List.of();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String line(String state, String runId, long created, String kind, String key) {
+		return state + '\t' + runId + '\t' + created + '\t' + kind + '\t' + key.replace('\t', ' ').replace('\n', ' ');
+	}
+
+	private static void append(List<String> lines) {
+		if (lines.isEmpty()) {
+			return;
+		}
+		write(channel -> {
+			channel.position(channel.size());
+			channel.write(ByteBuffer.wrap((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8)));
+		});
+	}
+
+	//Rewrites the registry with only the pending entries, under the same lock as appends
+	private static void compact() {
+		write(channel -> {
+			channel.position(0);
+			String registry = new String(Channels.newInputStream(channel).readAllBytes(), StandardCharsets.UTF_8);
+			StringBuilder remaining = new StringBuilder();
+			for (Entry entry : pending(List.of(registry.split("\n"))).values()) {
+				remaining.append(line(CREATED, entry.runId, entry.created, entry.kind, entry.key)).append('\n');
+			}
+			channel.truncate(0);
+			channel.write(ByteBuffer.wrap(remaining.toString().getBytes(StandardCharsets.UTF_8)));
+		});
+	}
+
+	private interface ChannelWrite {
+		void write(FileChannel channel) throws IOException;
+	}
+
+	private static synchronized void write(ChannelWrite write) {
+		Path file = Path.of(Constant.TESTDATAREGISTRY);
+		try {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				channel.lock();//released when the channel is closed
+				write.write(channel);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
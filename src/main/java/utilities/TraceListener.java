@@ -0,0 +1,116 @@
+package utilities;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.decorators.Decorated;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+/**
+ * TraceListener feeds every call made through a driver decorated with Selenium's
+ * EventFiringDecorator into the {@link CommandTrace} of the current test. Arguments and results
+ * are kept as short descriptions; text typed into password fields is masked.
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class TraceListener implements WebDriverListener {
+
+	private static final int MAXTEXT = Integer.getInteger("trace.max.text", 200);
+	//Calls that load a page; clicks and submits may, which is checked by the URL afterwards
+	private static final Set<String> NAVIGATIONS = Set.of("get", "to", "back", "forward", "refresh");
+	private static final Set<String> MAYNAVIGATE = Set.of("click", "submit");
+	//Locators of the elements found so far, for drivers whose elements do not tell their locator
+	private static final Map<Object, String> FOUNDBY = Collections.synchronizedMap(new WeakHashMap<>());
+
+	@Override
+	public void beforeAnyCall(Object target, Method method, Object[] args) {
+		CommandTrace.commandStarted();
+	}
+
+	@Override
+	public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+		if (result instanceof WebElement && args != null && args.length > 0 && args[0] instanceof By) {
+			FOUNDBY.put(result, args[0].toString());
+		}
+		finish(target, method, args, describe(result), false);
+	}
+
+	@Override
+	public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+		Throwable cause = e.getCause() == null ? e : e.getCause();
+		String message = cause.getMessage() == null ? "" : cause.getMessage().split("\n", 2)[0];
+		finish(target, method, args, cause.getClass().getSimpleName() + ": " + truncate(message), true);
+	}
+
+	private void finish(Object target, Method method, Object[] args, String result, boolean error) {
+		String command = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+		String locator = LatencyListener.locator(target, args);
+		if ((locator == null || locator.isEmpty()) && target instanceof WebElement) {
+			locator = FOUNDBY.getOrDefault(target, "");
+		}
+		Boolean transition = NAVIGATIONS.contains(method.getName()) ? Boolean.TRUE
+				: MAYNAVIGATE.contains(method.getName()) ? null : Boolean.FALSE;
+		CommandTrace.commandFinished(command, target instanceof WebElement ? locator : "", arguments(method, args, locator),
+				result, error, transition);
+	}
+
+	private static String arguments(Method method, Object[] args, String locator) {
+		if (args == null || args.length == 0) {
+			return "";
+		}
+		if ("sendKeys".equals(method.getName()) && locator != null
+				&& locator.toLowerCase(Locale.ROOT).contains("password")) {
+			return "*****";
+		}
+		StringBuilder text = new StringBuilder();
+		for (Object arg : args) {
+			text.append(text.length() == 0 ? "" : ", ").append(describe(arg));
+		}
+		return truncate(text.toString());
+	}
+
+	private static String describe(Object value) {
+		if (value == null) {
+			return "";
+		}
+		if (value instanceof WebElement) {
+			String locator = LatencyListener.locator(value, null);
+			if (locator == null || locator.isEmpty()) {
+				locator = FOUNDBY.getOrDefault(value, "");
+			}
+			return locator.isEmpty() ? "element" : "element " + locator;
+		}
+		if (value instanceof Decorated || value instanceof WebDriver || value instanceof WebDriver.Options
+				|| value instanceof WebDriver.Window || value instanceof WebDriver.Navigation
+				|| value instanceof WebDriver.TargetLocator || value instanceof WebDriver.Timeouts) {
+			return "";//the object a chained call continues on, not a result
+		}
+		if (value instanceof Collection) {
+			return ((Collection<?>) value).size() + " items";
+		}
+		if (value instanceof byte[]) {
+			return ((byte[]) value).length + " bytes";
+		}
+		if (value instanceof CharSequence[]) {
+			return String.join("", (CharSequence[]) value);
+		}
+		if (value instanceof Object[]) {
+			return ((Object[]) value).length + " values";
+		}
+		return truncate(String.valueOf(value));
+	}
+
+	private static String truncate(String text) {
+		return text.length() <= MAXTEXT ? text : text.substring(0, MAXTEXT) + "...";
+	}
+}
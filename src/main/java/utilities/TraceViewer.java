@@ -0,0 +1,135 @@
+package utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.openqa.selenium.json.Json;
+
+/**
+ * TraceViewer turns a {@link CommandTrace} file into a self-contained HTML page next to it that
+ * replays the test offline: a timeline of the commands with their durations, play and step
+ * controls, the details of the selected command and the page as it was at that point, from the
+ * last snapshot before it. Page snapshots are shown in a sandboxed frame without their scripts.
+ *
+ * <pre>
+ * java -cp ... utilities.TraceViewer traces/&lt;run id&gt;/*.trace
+ * </pre>
+ *
+ * @author QA Engineer
+ * @version 1.0
+ */
+public class TraceViewer {
+
+	private static final String TEMPLATE = "<!DOCTYPE html>\n<html><head><meta charset='utf-8'><title>Trace</title>\n"
+			+ "<style>\n"
+			+ "body{font:13px sans-serif;margin:0;display:flex;flex-direction:column;height:100vh}\n"
+			+ "header{padding:8px 12px;background:#263238;color:#fff;display:flex;gap:12px;align-items:center}\n"
+			+ "header .failed{color:#ff8a80}header .passed{color:#b9f6ca}\n"
+			+ "main{flex:1;display:flex;min-height:0}\n"
+			+ "#timeline{width:45%;overflow:auto;border-right:1px solid #ccc}\n"
+			+ "#timeline div{padding:3px 8px;cursor:pointer;white-space:nowrap;overflow:hidden;text-overflow:ellipsis}\n"
+			+ "#timeline div.error{color:#c62828}#timeline div.selected{background:#e3f2fd}\n"
+			+ "#timeline .bar{display:inline-block;height:8px;background:#90a4ae;margin-right:6px;vertical-align:middle}\n"
+			+ "#timeline .snap{color:#1565c0}\n"
+			+ "#detail{flex:1;display:flex;flex-direction:column;min-width:0}\n"
+			+ "#info{padding:8px 12px;border-bottom:1px solid #ccc;white-space:pre-wrap;word-break:break-all}\n"
+			+ "iframe{flex:1;border:0;width:100%}\n"
+			+ "</style></head><body>\n"
+			+ "<header><b id='test'></b><span id='status'></span><button id='play'>Play</button>"
+			+ "<button id='prev'>&lt;</button><button id='next'>&gt;</button>"
+			+ "<input id='slider' type='range' min='0' value='0' style='flex:1'>"
+			+ "<select id='speed'><option>1</option><option selected>4</option><option>16</option></select>x</header>\n"
+			+ "<main><div id='timeline'></div><div id='detail'><div id='info'></div>"
+			+ "<iframe id='page' sandbox></iframe></div></main>\n"
+			+ "<script type='application/json' id='trace'>%s</script>\n"
+			+ "<script>\n"
+			+ "var trace = JSON.parse(document.getElementById('trace').textContent);\n"
+			+ "var commands = trace.commands, snapshots = trace.snapshots, current = -1, timer = null, shown = null;\n"
+			+ "var longest = Math.max.apply(null, commands.map(function (c) { return c.duration; }).concat([1]));\n"
+			+ "function ms(micros) { return (micros / 1000).toFixed(1) + ' ms'; }\n"
+			+ "document.getElementById('test').textContent = trace.test;\n"
+			+ "var statusLabel = document.getElementById('status');\n"
+			+ "statusLabel.textContent = (trace.status || 'unfinished') + ', ' + commands.length + ' commands, ' + ms(trace.end || 0)"
+			+ " + ', ' + new Date(trace.start).toISOString();\n"
+			+ "statusLabel.className = trace.status;\n"
+			+ "var timeline = document.getElementById('timeline'), rows = [];\n"
+			+ "commands.forEach(function (c, i) {\n"
+			+ "  var row = document.createElement('div'), bar = document.createElement('span');\n"
+			+ "  bar.className = 'bar'; bar.style.width = Math.max(1, 80 * c.duration / longest) + 'px';\n"
+			+ "  row.appendChild(bar);\n"
+			+ "  row.appendChild(document.createTextNode(ms(c.start) + '  ' + c.command + (c.target ? ' ' + c.target : '')"
+			+ " + (c.arguments ? ' (' + c.arguments + ')' : '')));\n"
+			+ "  if (snapshots.some(function (s) { return s.at >= c.start + c.duration && (i + 1 == commands.length"
+			+ " || s.at < commands[i + 1].start); })) {\n"
+			+ "    var snap = document.createElement('span'); snap.className = 'snap'; snap.textContent = '  [page]';"
+			+ " row.appendChild(snap);\n"
+			+ "  }\n"
+			+ "  if (c.error) { row.className = 'error'; }\n"
+			+ "  row.onclick = function () { stop(); select(i); };\n"
+			+ "  timeline.appendChild(row); rows.push(row);\n"
+			+ "});\n"
+			+ "var slider = document.getElementById('slider'); slider.max = Math.max(0, commands.length - 1);\n"
+			+ "slider.oninput = function () { stop(); select(+slider.value); };\n"
+			+ "function select(i) {\n"
+			+ "  if (i < 0 || i >= commands.length) { return; }\n"
+			+ "  if (current >= 0) { rows[current].classList.remove('selected'); }\n"
+			+ "  current = i; rows[i].classList.add('selected'); rows[i].scrollIntoView({block: 'nearest'}); slider.value = i;\n"
+			+ "  var c = commands[i], end = c.start + c.duration, page = null;\n"
+			+ "  snapshots.forEach(function (s) { if (s.at <= end) { page = s; } });\n"
+			+ "  document.getElementById('info').textContent = c.command + (c.target ? '\\ntarget: ' + c.target : '')"
+			+ " + (c.arguments ? '\\narguments: ' + c.arguments : '') + '\\n' + (c.error ? 'error: ' : 'result: ')"
+			+ " + (c.result || '-') + '\\nat ' + ms(c.start) + ', took ' + ms(c.duration)"
+			+ " + (page ? '\\npage: ' + page.url + ' as of ' + ms(page.at) : '');\n"
+			+ "  if (page !== shown) { shown = page; document.getElementById('page').srcdoc = page ? page.dom : ''; }\n"
+			+ "}\n"
+			+ "function stop() { clearTimeout(timer); timer = null; document.getElementById('play').textContent = 'Play'; }\n"
+			+ "function step() {\n"
+			+ "  if (current + 1 >= commands.length) { stop(); return; }\n"
+			+ "  select(current + 1);\n"
+			+ "  var next = commands[current + 1], wait = next ? (next.start - commands[current].start) / 1000 : 0;\n"
+			+ "  timer = setTimeout(step, Math.min(2000, wait / +document.getElementById('speed').value));\n"
+			+ "}\n"
+			+ "document.getElementById('play').onclick = function () {\n"
+			+ "  if (timer) { stop(); return; }\n"
+			+ "  if (current + 1 >= commands.length) { current = -1; }\n"
+			+ "  this.textContent = 'Pause'; step();\n"
+			+ "};\n"
+			+ "document.getElementById('prev').onclick = function () { stop(); select(current - 1); };\n"
+			+ "document.getElementById('next').onclick = function () { stop(); select(current + 1); };\n"
+			+ "var failed = commands.map(function (c) { return c.error; }).lastIndexOf(true);\n"
+			+ "select(trace.status == 'failed' && failed >= 0 ? failed : commands.length - 1);\n"
+			+ "</script></body></html>\n";
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: TraceViewer <trace file>...");
+			System.exit(2);
+		}
+		for (String arg : args) {
+			System.out.println(write(new File(arg)));
+		}
+	}
+
+	/**
+	 * Writes the viewer page of a trace file next to it, with the extension .html.
+	 *
+	 * @param trace A file written by CommandTrace
+	 * @return The HTML file
+	 * @throws IOException If the trace cannot be read or the page cannot be written
+	 */
+	public static File write(File trace) throws IOException {
+		Map<String, Object> recording = CommandTrace.read(trace.toPath());
+		//the JSON sits inside a script element, which "</script>" or "<!--" in a page snapshot would break
+		String json = new Json().toJson(recording).replace("<", "\\u003c");
+		String name = trace.getName();
+		Path html = trace.toPath().resolveSibling(
+				(name.endsWith(CommandTrace.EXTENSION) ? name.substring(0, name.length() - CommandTrace.EXTENSION.length()) : name)
+						+ ".html");
+		Files.write(html, TEMPLATE.replace("%s", json).getBytes(StandardCharsets.UTF_8));
+		return html.toFile();
+	}
+}
@@ -5,6 +5,7 @@ import java.time.Duration;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
@@ -32,8 +33,7 @@ public class WaitUtility {
 	 * @param element The WebElement to wait for until it becomes clickable
 	 */
 	public void waitUntilClickable(WebDriver driver, WebElement element) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(EXPLICITWAIT));
-		wait.until(ExpectedConditions.elementToBeClickable(element));
+		await(driver, "waitUntilClickable", element, ExpectedConditions.elementToBeClickable(element));
 	}
 
 	/**
@@ -44,8 +44,7 @@ public class WaitUtility {
 	 * @param driver The WebDriver instance used for automation
 	 */
 	public void waitUntilAlertDisplayed(WebDriver driver) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(EXPLICITWAIT));
-		wait.until(ExpectedConditions.alertIsPresent());
+		await(driver, "waitUntilAlertDisplayed", null, ExpectedConditions.alertIsPresent());
 	}
 
 	/**
@@ -56,8 +55,7 @@ public class WaitUtility {
 	 * @param driver The WebDriver instance used for automation
 	 */
 	public void waitUntilLogoutIsDisplayed(WebDriver driver) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(EXPLICITWAIT));
-		wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector("a i.fa-power-off")));
+		await(driver, "waitUntilLogoutIsDisplayed", null, ExpectedConditions.presenceOfElementLocated(By.cssSelector("a i.fa-power-off")));
 	}
 
 	/**
@@ -70,8 +68,7 @@ public class WaitUtility {
 	 * @param text The text value expected to be present in the element
 	 */
 	public void waitUntilTextIsDisplayed(WebDriver driver, WebElement element, String text) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(EXPLICITWAIT));
-		wait.until(ExpectedConditions.textToBePresentInElement(element, text));
+		await(driver, "waitUntilTextIsDisplayed", element, ExpectedConditions.textToBePresentInElement(element, text));
 	}
 
 	/**
@@ -83,8 +80,7 @@ public class WaitUtility {
 	 * @param element The WebElement to wait for until it becomes selected
 	 */
 	public void waitUntilElementIsSelected(WebDriver driver, WebElement element) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(EXPLICITWAIT));
-		wait.until(ExpectedConditions.elementToBeSelected(element));
+		await(driver, "waitUntilElementIsSelected", element, ExpectedConditions.elementToBeSelected(element));
 	}
 
 	/**
@@ -96,7 +92,26 @@ public class WaitUtility {
 	 * @param element The WebElement to wait for until it becomes visible
 	 */
 	public void waitUntilElementIsVisible(WebDriver driver, WebElement element) {
-		WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(EXPLICITWAIT));
-		wait.until(ExpectedConditions.visibilityOf(element));
+		await(driver, "waitUntilElementIsVisible", element, ExpectedConditions.visibilityOf(element));
+	}
+
+	/**
+	 * Waits for the given condition using the default timeout.
+	 * The wait is recorded by the FlightRecorder and its duration by DriverMetrics.
+	 *
+	 * @param driver The WebDriver instance used for automation
+	 * @param name The name of the wait, used for recording
+	 * @param element The WebElement the wait is about, or null
+	 * @param condition The condition to wait for
+	 */
+	private void await(WebDriver driver, String name, WebElement element, ExpectedCondition<?> condition) {
+		FlightRecorder.record(name, element);
+		long start = System.nanoTime();
+		try {
+			WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(EXPLICITWAIT));
+			wait.until(condition);
+		} finally {
+			DriverMetrics.record("WaitUtility." + name, null, System.nanoTime() - start);
+		}
 	}
 }
@@ -0,0 +1,220 @@
+package base;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ITestResult;
+import org.testng.xml.XmlTest;
+
+import retry.Retry;
+import utilities.ProcessMonitor;
+
+/**
+ * Limits how many tests of this JVM hold a browser at once. The suite XMLs only set a ceiling
+ * through thread-count; below it the limit follows TCP congestion control: it grows by one test per
+ * window of healthy completions (additive increase) and is halved (multiplicative decrease) when
+ * the host CPU saturates, available memory runs out, a test takes more than twice its fastest
+ * duration or fails with a transient exception. Host and browser load are sampled from /proc by
+ * {@link ProcessMonitor}; elsewhere only the duration and failure signals apply.
+ * Disable with -Dconcurrency.adaptive=false to run as many tests as TestNG has threads.
+ */
+public class AdaptiveConcurrency {
+	private static final Logger LOG = LogManager.getLogger(AdaptiveConcurrency.class);
+	private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("concurrency.adaptive", "true"));
+	private static final int INITIAL = Integer.getInteger("concurrency.initial", 5);
+	private static final int MINIMUM = Math.max(1, Integer.getInteger("concurrency.min", 1));
+	private static final int MAXIMUM = Integer.getInteger("concurrency.max", 16);
+	private static final long SAMPLEMILLIS = Long.getLong("concurrency.sample.ms", 1000);
+	//Congestion thresholds of the host, and of a test against its fastest run
+	private static final double CPUHIGH = 0.9;
+	private static final double MEMORYLOW = 0.1;
+	private static final double DURATIONINFLATION = 2.0;
+	private static final double DECREASEFACTOR = 0.5;
+	private static final AdaptiveConcurrency INSTANCE = new AdaptiveConcurrency();
+
+	private final ProcessMonitor monitor = new ProcessMonitor();
+	private final ThreadLocal<Long> permitStart = new ThreadLocal<>();
+	private final Map<String, Long> fastestMillis = new ConcurrentHashMap<>();
+	private final Map<String, Integer> decreaseReasons = new LinkedHashMap<>();
+	private double limit = Math.min(Math.max(INITIAL, MINIMUM), MAXIMUM);
+	private int running;
+	private long completed;
+	//No further decrease until the tests running at the last one have completed, as in TCP fast recovery
+	private long recoverUntil;
+	private int increases;
+	private int peakRunning;
+	private int lowestLimit = (int) limit;
+	private int highestLimit = (int) limit;
+	private ScheduledExecutorService sampler;
+	private volatile ProcessMonitor.Sample lastSample;
+	private double peakHostCpu;
+	private double lowestMemoryAvailable = 1;
+	private long peakBrowserRssKb;
+	private int peakBrowserProcesses;
+
+	private AdaptiveConcurrency() {
+	}
+
+	public static AdaptiveConcurrency getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Blocks until the current limit lets one more test run. Pair with {@link #release(ITestResult)}.
+	 */
+	public void acquire() throws InterruptedException {
+		if (!ENABLED || permitStart.get() != null) {
+			return;
+		}
+		synchronized (this) {
+			startSampler();
+			while (running >= (int) limit) {
+				wait();
+			}
+			running++;
+			peakRunning = Math.max(peakRunning, running);
+		}
+		permitStart.set(System.nanoTime());
+	}
+
+	/**
+	 * Gives the permit of the current thread back and feeds the outcome of its test into the limit.
+	 * Does nothing if the thread holds no permit, e.g. when the browser could not be started.
+	 */
+	public void release(ITestResult result) {
+		Long start = permitStart.get();
+		if (start == null) {
+			return;
+		}
+		permitStart.remove();
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		//durations are only comparable on the same browser; a cross-browser suite runs a method once per <test>
+		XmlTest xmlTest = result.getTestContext().getCurrentXmlTest();
+		String test = xmlTest.getName() + ": " + result.getMethod().getQualifiedName() + " ("
+				+ xmlTest.getParameter("browser") + ")";
+		Long fastest = fastestMillis.merge(test, millis, Math::min);
+		synchronized (this) {
+			running--;
+			completed++;
+			if (result.getStatus() == ITestResult.FAILURE && result.getThrowable() != null
+					&& Retry.isTransient(result.getThrowable())) {
+				decrease("transient failure", test + ": " + result.getThrowable().getClass().getSimpleName());
+			} else if (millis > fastest * DURATIONINFLATION && fastest > 0) {
+				decrease("slow test", test + " took " + millis + " ms, fastest " + fastest + " ms");
+			} else if (hasHeadroom()) {
+				double before = limit;
+				limit = Math.min(MAXIMUM, limit + 1 / limit);//one more test per window of completions
+				if ((int) limit > (int) before) {
+					increases++;
+					highestLimit = Math.max(highestLimit, (int) limit);
+					LOG.debug("Concurrency raised to {}", (int) limit);
+				}
+			}
+			notifyAll();
+		}
+	}
+
+	/**
+	 * @return True if any test went through the controller in this JVM
+	 */
+	public synchronized boolean isUsed() {
+		return completed > 0;
+	}
+
+	/**
+	 * @return The controller's limits and the load it saw, for the report; the first row is the header
+	 */
+	public synchronized String[][] summaryTable() {
+		StringBuilder reasons = new StringBuilder();
+		for (Map.Entry<String, Integer> reason : decreaseReasons.entrySet()) {
+			reasons.append(reasons.length() == 0 ? "" : ", ").append(reason.getKey()).append(' ').append(reason.getValue());
+		}
+		int decreases = decreaseReasons.values().stream().mapToInt(Integer::intValue).sum();
+		boolean sampled = lastSample != null;
+		return new String[][] { { "Measure", "Value" },
+				{ "Tests", String.valueOf(completed) },
+				{ "Limit at start / end", Math.min(Math.max(INITIAL, MINIMUM), MAXIMUM) + " / " + (int) limit },
+				{ "Limit range", lowestLimit + " - " + highestLimit + " (allowed " + MINIMUM + " - " + MAXIMUM + ")" },
+				{ "Peak concurrent tests", String.valueOf(peakRunning) },
+				{ "Increases", String.valueOf(increases) },
+				{ "Decreases", decreases + (decreases == 0 ? "" : " (" + reasons + ")") },
+				{ "Peak host CPU", sampled ? percent(peakHostCpu) : "n/a" },
+				{ "Lowest available memory", sampled ? percent(lowestMemoryAvailable) : "n/a" },
+				{ "Peak browser RSS", sampled ? peakBrowserRssKb / 1024 + " MB" : "n/a" },
+				{ "Peak browser processes", sampled ? String.valueOf(peakBrowserProcesses) : "n/a" } };
+	}
+
+	private void decrease(String reason, String detail) {
+		if (completed < recoverUntil) {
+			return;
+		}
+		double before = limit;
+		limit = Math.max(MINIMUM, limit * DECREASEFACTOR);
+		recoverUntil = completed + running;
+		if ((int) limit < (int) before) {
+			decreaseReasons.merge(reason, 1, Integer::sum);
+			lowestLimit = Math.min(lowestLimit, (int) limit);
+			LOG.info("Concurrency lowered from {} to {} on {}: {}", (int) before, (int) limit, reason, detail);
+		}
+	}
+
+	//Room for another browser: the host is not overloaded and has the memory of one more session to spare
+	private boolean hasHeadroom() {
+		ProcessMonitor.Sample sample = lastSample;
+		if (sample == null) {
+			return true;
+		}
+		if (sample.getHostCpu() > CPUHIGH || sample.getMemoryAvailable() < MEMORYLOW) {
+			return false;
+		}
+		//per browser session, not per driver process: a shared chromedriver serves every Chrome session
+		return sample.getSessions() == 0
+				|| sample.getMemoryAvailableKb() > 2 * sample.getBrowserRssKb() / sample.getSessions();
+	}
+
+	private void startSampler() {
+		if (sampler != null || !ProcessMonitor.isSupported()) {
+			return;
+		}
+		sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "concurrency-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		monitor.sample();//the first sample only sets the baseline of the CPU ratios
+		sampler.scheduleWithFixedDelay(this::sample, SAMPLEMILLIS, SAMPLEMILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	private void sample() {
+		try {
+			ProcessMonitor.Sample sample = monitor.sample();
+			synchronized (this) {
+				lastSample = sample;
+				peakHostCpu = Math.max(peakHostCpu, sample.getHostCpu());
+				lowestMemoryAvailable = Math.min(lowestMemoryAvailable, sample.getMemoryAvailable());
+				peakBrowserRssKb = Math.max(peakBrowserRssKb, sample.getBrowserRssKb());
+				peakBrowserProcesses = Math.max(peakBrowserProcesses, sample.getDriverProcesses() + sample.getBrowserProcesses());
+				if (sample.getHostCpu() > CPUHIGH) {
+					decrease("host CPU", percent(sample.getHostCpu()) + " busy, browsers using "
+							+ String.format(Locale.ROOT, "%.1f", sample.getBrowserCpu()) + " cores");
+				} else if (sample.getMemoryAvailable() < MEMORYLOW) {
+					decrease("host memory", percent(sample.getMemoryAvailable()) + " available, browsers using "
+							+ sample.getBrowserRssKb() / 1024 + " MB");
+				}
+			}
+		} catch (RuntimeException e) {
+			LOG.warn("Host load could not be sampled: {}", e.toString());
+		}
+	}
+
+	private static String percent(double ratio) {
+		return String.format(Locale.ROOT, "%.0f%%", 100 * ratio);
+	}
+}
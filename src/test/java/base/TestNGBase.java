@@ -1,49 +1,224 @@
 package base;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.htmlunit.BrowserVersion;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.service.DriverService;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
 import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Parameters;
 
 import constants.Constant;
+import jfr.DriverQuitEvent;
+import jfr.DriverStartEvent;
+import jfr.FrameworkRecording;
+import pages.BasePage;
+import pages.Navigator;
+import reportgeneration.TestLogAppender;
+import retry.DeferredRetry;
+import stub.GroceryStubServer;
+import utilities.ApiUtility;
+import utilities.CommandTrace;
+import utilities.DriverProvisioner;
+import utilities.ExcelUtility;
+import utilities.FlightRecorder;
+import utilities.LatencyListener;
+import utilities.PagePerformanceUtility;
+import utilities.ProcessReaper;
 import utilities.ScreenshotUtility;
+import utilities.TestDataTracker;
+import utilities.TraceListener;
 
 public class TestNGBase {
+	private static final Logger LOG = LogManager.getLogger(TestNGBase.class);
 	Properties prop;//Declaring Properties class as a global var
 	FileInputStream f;
 	public WebDriver driver;
+	//Scheme, host and port of the application; every page is addressed relative to it
+	private static volatile String baseUrl;
+	@BeforeSuite(alwaysRun = true)
+	public void startRecording() {
+		if (DeferredRetry.isRerunning()) {
+			return;//the deferred rerun runs inside the suite it reruns and shares its fixtures
+		}
+		FrameworkRecording.start();//only records when started with -Djfr.record=true, written on JVM exit
+	}
+	@BeforeSuite(alwaysRun = true)
+	public void sweepBrowserProcesses() {
+		if (DeferredRetry.isRerunning()) {
+			return;
+		}
+		ProcessReaper.sweep();//drivers and browsers of earlier runs whose JVM was killed
+	}
+	@BeforeSuite(alwaysRun = true)
+	public void startApplication() throws IOException {
+		if (DeferredRetry.isRerunning()) {
+			return;
+		}
+		if (Constant.STUBSERVER) {
+			baseUrl = GroceryStubServer.acquire(Constant.STUBPORT);//local stand-in, no network involved
+			return;
+		}
+		Properties config = new Properties();
+		try (FileInputStream file = new FileInputStream(Constant.CONFIGFILE)) {
+			config.load(file);
+		}
+		baseUrl = System.getProperty("baseurl", config.getProperty("baseurl"));
+	}
+	@AfterSuite(alwaysRun = true)
+	public void runDeferredRetries() {
+		DeferredRetry.runQueued();//-Dretry.deferred=true; before the fixtures below are torn down, the rerun uses them
+	}
+	@AfterSuite(alwaysRun = true, dependsOnMethods = "runDeferredRetries")
+	public void stopDriverService() {
+		if (DeferredRetry.isRerunning()) {
+			return;
+		}
+		DriverProvisioner.stopSharedService();
+	}
+	@AfterSuite(alwaysRun = true, dependsOnMethods = "runDeferredRetries")
+	public void stopApplication() throws IOException {
+		if (DeferredRetry.isRerunning()) {
+			return;
+		}
+		//Entities created by this run are deleted in batches once, not by every test
+		try {
+			String usernamevalue = ExcelUtility.getStringData(1, 0, Constant.SHEETNAME);
+			String passwordvalue = ExcelUtility.getStringData(1, 1, Constant.SHEETNAME);
+			TestDataTracker.cleanup(baseUrl, usernamevalue, passwordvalue, Constant.RUNID);
+		} catch (RuntimeException e) {
+			LOG.warn("Test data could not be cleaned up, run utilities.TestDataTracker later: {}", e.toString());
+		} finally {
+			if (Constant.STUBSERVER) {
+				GroceryStubServer.release();
+			}
+		}
+	}
+	//Signs in over HTTP and hands the session to the browser, for tests whose subject is not the login itself;
+	//the browser stays where it is, navigateTo then deep links to the page under test
+	public ApiUtility apiLogin(String username, String password) {
+		ApiUtility api = new ApiUtility(baseUrl).login(username, password);
+		api.shareSessionWith(driver);
+		return api;
+	}
+	//Opens a page by the cheapest route from the current one, a deep link where the session allows it
+	public <P extends BasePage> P navigateTo(Class<P> page) {
+		return new Navigator(driver).open(page);
+	}
+	//Absolute URL of an application path, e.g. appUrl("/admin/login")
+	public static String appUrl(String path) {
+		return baseUrl + path;
+	}
 	@BeforeMethod(alwaysRun = true)
 	@Parameters("browser")
-	public void initialiseBrowser(String browser) throws Exception{
+	public void initialiseBrowser(String browser, Method method) throws Exception{
+		TestLogAppender.start(method.getName());//log events of this thread are kept until the test ends
+		LOG.debug("Starting {} for {}", browser, method.getName());
+		AdaptiveConcurrency.getInstance().acquire();//waits while the host has no room for another browser
 		prop = new Properties();
 		f= new FileInputStream(Constant.CONFIGFILE);
 		prop.load(f);//load any file with .properties
+		driver = null;//a failed launch must not leave the previous test's driver to be quit again
+		DriverStartEvent driverStart = new DriverStartEvent();//browser launch time as a gaframework.DriverStart JFR event
+		driverStart.begin();
 		if(browser.equalsIgnoreCase("chrome")) {
 			ChromeOptions options = new ChromeOptions();//Change settings within Chrome
 			Map<String,Object> prefs=new HashMap<>();
 			prefs.put("profile.password_manager_leak_detection", false);
 			options.setExperimentalOption("prefs", prefs);
-			driver=new ChromeDriver(options);
+			DriverProvisioner.Resolution chrome = DriverProvisioner.resolve(browser);//cached binaries, no Selenium Manager
+			if (chrome.getBrowserPath() != null) {
+				options.setBinary(chrome.getBrowserPath());
+			}
+			if (Constant.SHAREDDRIVERSERVICE) {
+				//One chromedriver serves every session; quitting a RemoteWebDriver leaves it running
+				ChromeDriverService service = DriverProvisioner.sharedChromeService();
+				driver = new RemoteWebDriver(service.getUrl(), options);
+				ProcessReaper.trackBrowser(service, chromeUserDataDir(driver), method.getName());
+			} else {
+				ChromeDriverService service = new ChromeDriverService.Builder()
+						.usingDriverExecutable(new File(chrome.getDriverPath())).usingAnyFreePort().build();
+				startService(service, method.getName());
+				driver = new ChromeDriver(service, options);
+			}
 		}
 		else if (browser.equalsIgnoreCase("firefox")) {
-			driver = new FirefoxDriver();
+			FirefoxOptions options = new FirefoxOptions();
+			DriverProvisioner.Resolution firefox = DriverProvisioner.resolve(browser);
+			if (firefox.getBrowserPath() != null) {
+				options.setBinary(firefox.getBrowserPath());
+			}
+			//geckodriver runs one session at a time, every test starts its own from the cached binary
+			GeckoDriverService service = new GeckoDriverService.Builder()
+					.usingDriverExecutable(new File(firefox.getDriverPath())).usingAnyFreePort().build();
+			startService(service, method.getName());
+			driver = new FirefoxDriver(service, options);
+		}
+		else if (browser.equalsIgnoreCase("http")) {
+			//No browser process: HtmlUnit loads pages, submits forms and runs JavaScript inside the JVM
+			driver = new HtmlUnitDriver(BrowserVersion.CHROME, true);
 		}
 		else {
-			System.out.println("Invalid browser");
+			throw new IllegalArgumentException("Invalid browser: " + browser);
 		}
-		driver.get(prop.getProperty("url"));
+		ProcessReaper.browserStarted();
+		List<WebDriverListener> listeners = new ArrayList<>();
+		if (Boolean.parseBoolean(System.getProperty("webdriver.metrics", "true"))) {
+			listeners.add(new LatencyListener());//times every driver command
+		}
+		if (CommandTrace.isEnabled()) {
+			CommandTrace.start(driver, method.getName());//snapshots are read through the undecorated driver
+			listeners.add(new TraceListener());//every driver command into the binary trace of the test
+		}
+		if (!listeners.isEmpty()) {
+			driver = new EventFiringDecorator<WebDriver>(listeners.toArray(new WebDriverListener[0])).decorate(driver);
+		}
+		driverStart.browser = browser;
+		driverStart.testName = method.getName();
+		driverStart.commit();
+		FlightRecorder.start(driver, method.getName());//keeps the last steps in memory, reported only on failure
+		driver.get(appUrl(prop.getProperty("url")));
+		FlightRecorder.navigated(appUrl(prop.getProperty("url")));//steps take the URL from here, not from the browser
+		new PagePerformanceUtility().capture(driver);//the login page is the first measured navigation
 		driver.manage().window().maximize();
 	}
+	//Starts the driver service up front, so that its process is tracked before the browser is launched
+	private static void startService(DriverService service, String testName) throws IOException {
+		service.start();
+		ProcessReaper.track(service, testName);
+	}
+	//The profile folder chromedriver created for the session, an argument only this session's browser process has
+	private static String chromeUserDataDir(WebDriver driver) {
+		Object chrome = ((HasCapabilities) driver).getCapabilities().getCapability("chrome");
+		Object userDataDir = chrome instanceof Map ? ((Map<?, ?>) chrome).get("userDataDir") : null;
+		return userDataDir == null ? null : "--user-data-dir=" + userDataDir;
+	}
 	@AfterMethod
 	public void closeBrowser() {
 	//	driver.close();//tab
@@ -53,12 +228,38 @@ public class TestNGBase {
 	public void driverQuit(ITestResult iTestResult) throws IOException
 	{
 		//ITestResult: predefined interface having all info regarding test data
-		if(iTestResult.getStatus()==ITestResult.FAILURE)
-		{
-			ScreenshotUtility screenShot=new ScreenshotUtility();
-			//iTestResult.getName: Returns name of test method
-			screenShot.getScreenshot(driver, iTestResult.getName());
+		try {
+			List<FlightRecorder.Step> steps = FlightRecorder.stop(iTestResult.getStatus()==ITestResult.FAILURE);
+			if(iTestResult.getStatus()==ITestResult.FAILURE)
+			{
+				iTestResult.setAttribute(Constant.FLIGHTRECORDERATTRIBUTE, steps);
+			}
+			if(iTestResult.getStatus()==ITestResult.FAILURE && driver instanceof TakesScreenshot)//browser=http has no screen
+			{
+				ScreenshotUtility screenShot=new ScreenshotUtility();
+				//iTestResult.getName: Returns name of test method
+				//Only the capture blocks here, the file is written in the background and linked by the Listener
+				iTestResult.setAttribute(Constant.SCREENSHOTATTRIBUTE, screenShot.getScreenshot(driver, iTestResult.getName()));
+			}
+			File trace = CommandTrace.stop(iTestResult.getStatus()==ITestResult.FAILURE);//before quit, a failure keeps the last page
+			if (trace != null) {
+				iTestResult.setAttribute(Constant.TRACEATTRIBUTE, trace);
+			}
+			if (driver != null)//null when initialiseBrowser failed before a browser was created
+			{
+				DriverQuitEvent driverQuit = new DriverQuitEvent();
+				driverQuit.begin();
+				driver.quit();
+				driverQuit.testName = iTestResult.getName();
+				driverQuit.commit();
+			}
+		} finally {
+			ProcessReaper.release();//kills what quit left behind, or the whole tree of a failed launch
+			AdaptiveConcurrency.getInstance().release(iTestResult);//the browser is gone, the next test may start
+			String log = TestLogAppender.stop(iTestResult.getStatus()==ITestResult.FAILURE);//dropped unless the test failed
+			if (log != null) {
+				iTestResult.setAttribute(Constant.TESTLOGATTRIBUTE, log);
+			}
 		}
-		driver.quit();
 	}
 }
@@ -0,0 +1,160 @@
+package farm;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import constants.Constant;
+import retry.Quarantine;
+import utilities.ExtentReportUtility;
+import utilities.ScreenshotUtility;
+
+/**
+ * FarmWorker is a worker JVM started by the {@link WorkerFarm}. It connects back to the
+ * coordinator, asks for a {@link WorkUnit}, runs it with TestNG in this JVM, sends the results and
+ * asks for the next one until it is told to stop. Browsers, workbook and static state are its own.
+ *
+ * <pre>
+ * java -cp ... farm.FarmWorker &lt;coordinator port&gt; &lt;worker id&gt;
+ * </pre>
+ */
+public class FarmWorker {
+
+	private static final Json JSON = new Json();
+	private static final Duration SCREENSHOTWRITETIMEOUT = Duration.ofSeconds(30);
+
+	public static void main(String[] args) throws IOException {
+		int id = Integer.parseInt(args[1]);
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]));
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+			send(out, Map.of("type", "ready", "worker", id));
+			String line;
+			while ((line = in.readLine()) != null) {
+				Map<String, Object> message = JSON.toType(line, Json.MAP_TYPE);
+				if (!"run".equals(message.get("type"))) {
+					break;
+				}
+				WorkUnit unit = WorkUnit.fromMessage(message);
+				System.out.println("Running " + unit + " (unit " + unit.getId() + ", attempt " + unit.getAttempt() + ")");
+				for (Map<String, Object> result : run(unit, id)) {
+					send(out, result);
+				}
+				send(out, Map.of("type", "done", "unit", unit.getId()));
+			}
+		}
+		System.exit(0);//browser drivers may leave non-daemon threads behind
+	}
+
+	//Runs one unit as a suite of its own, so @BeforeSuite and @AfterSuite of the base class run around it
+	private static List<Map<String, Object>> run(WorkUnit unit, int workerId) {
+		XmlSuite suite = new XmlSuite();
+		suite.setName("Farm worker " + workerId);
+		XmlTest xmlTest = new XmlTest(suite);
+		xmlTest.setName(unit.getTest());
+		xmlTest.setParameters(unit.getParameters());
+		XmlClass xmlClass = new XmlClass(unit.getClassName());
+		xmlClass.setIncludedMethods(List.of(new XmlInclude(unit.getMethod())));
+		xmlTest.setXmlClasses(List.of(xmlClass));
+		List<Map<String, Object>> results = new ArrayList<>();
+		TestNG testng = new TestNG();
+		testng.setUseDefaultListeners(false);
+		testng.setVerbose(0);
+		testng.setXmlSuites(List.of(suite));
+		testng.addListener(new Quarantine());
+		testng.addListener(new ITestListener() {
+			@Override
+			public void onFinish(ITestContext context) {
+				ScreenshotUtility.awaitPendingWrites(SCREENSHOTWRITETIMEOUT);
+				collect(results, unit, workerId, context.getPassedTests().getAllResults(), "PASS");
+				collect(results, unit, workerId, context.getFailedTests().getAllResults(), "FAIL");
+				collect(results, unit, workerId, context.getSkippedTests().getAllResults(), "SKIP");
+			}
+		});
+		testng.run();
+		return results;
+	}
+
+	private static void collect(List<Map<String, Object>> results, WorkUnit unit, int workerId, Set<ITestResult> finished,
+			String status) {
+		for (ITestResult result : finished) {
+			Map<String, Object> message = new LinkedHashMap<>();
+			message.put("type", "result");
+			message.put("unit", unit.getId());
+			message.put("class", result.getTestClass().getName());
+			message.put("name", result.getMethod().getMethodName());
+			String description = result.getMethod().getDescription();
+			message.put("description", description == null || description.isEmpty() ? "No description provided." : description);
+			message.put("thread", "worker-" + workerId);
+			message.put("status", status);
+			message.put("start", result.getStartMillis());
+			message.put("end", result.getEndMillis());
+			if (result.getThrowable() != null) {
+				StringWriter trace = new StringWriter();
+				result.getThrowable().printStackTrace(new PrintWriter(trace));
+				message.put("error", trace.toString());
+			}
+			message.put("screenshot", screenshotPath(result));
+			message.put("log", result.getAttribute(Constant.TESTLOGATTRIBUTE));
+			results.add(message);
+		}
+	}
+
+	//Path of the screenshot of a failed test relative to the report folder, as the Listener links it
+	private static String screenshotPath(ITestResult result) {
+		Object screenshot = result.getAttribute(Constant.SCREENSHOTATTRIBUTE);
+		if (!(screenshot instanceof CompletableFuture)) {
+			return null;
+		}
+		CompletableFuture<?> write = (CompletableFuture<?>) screenshot;
+		if (!write.isDone() || write.isCompletedExceptionally()) {
+			return null;
+		}
+		File file;
+		try {
+			file = ScreenshotUtility.view((String) write.join());
+		} catch (IOException | UncheckedIOException e) {
+			return null;
+		}
+		Path reportFolder = new File(ExtentReportUtility.REPORTFILE).getAbsoluteFile().getParentFile().toPath().normalize();
+		return reportFolder.relativize(file.getAbsoluteFile().toPath().normalize()).toString().replace('\\', '/');
+	}
+
+	private static void send(Writer out, Map<String, Object> message) throws IOException {
+		StringBuilder line = new StringBuilder();
+		try (JsonOutput output = JSON.newOutput(line)) {
+			output.setPrettyPrint(false);
+			output.write(message);
+		}
+		out.write(line.append('\n').toString());
+		out.flush();
+	}
+}
@@ -0,0 +1,82 @@
+package farm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * WorkUnit is one test method of a suite, with the parameters of its &lt;test&gt;, as handed out
+ * by the {@link WorkerFarm} to a {@link FarmWorker}. Data-provider rows of a method stay in one unit.
+ */
+final class WorkUnit {
+
+	private final int id;
+	private final String test;
+	private final String className;
+	private final String method;
+	private final Map<String, String> parameters;
+	private final int attempt;
+
+	WorkUnit(int id, String test, String className, String method, Map<String, String> parameters, int attempt) {
+		this.id = id;
+		this.test = test;
+		this.className = className;
+		this.method = method;
+		this.parameters = parameters;
+		this.attempt = attempt;
+	}
+
+	//The same unit handed out again after the worker running it crashed
+	WorkUnit nextAttempt() {
+		return new WorkUnit(id, test, className, method, parameters, attempt + 1);
+	}
+
+	Map<String, Object> toMessage() {
+		Map<String, Object> message = new LinkedHashMap<>();
+		message.put("type", "run");
+		message.put("unit", id);
+		message.put("test", test);
+		message.put("class", className);
+		message.put("method", method);
+		message.put("parameters", parameters);
+		message.put("attempt", attempt);
+		return message;
+	}
+
+	@SuppressWarnings("unchecked")
+	static WorkUnit fromMessage(Map<String, Object> message) {
+		Map<String, String> parameters = new LinkedHashMap<>();
+		((Map<String, Object>) message.get("parameters")).forEach((name, value) -> parameters.put(name, String.valueOf(value)));
+		return new WorkUnit(((Number) message.get("unit")).intValue(), String.valueOf(message.get("test")),
+				String.valueOf(message.get("class")), String.valueOf(message.get("method")), parameters,
+				((Number) message.get("attempt")).intValue());
+	}
+
+	int getId() {
+		return id;
+	}
+
+	String getTest() {
+		return test;
+	}
+
+	String getClassName() {
+		return className;
+	}
+
+	String getMethod() {
+		return method;
+	}
+
+	Map<String, String> getParameters() {
+		return parameters;
+	}
+
+	int getAttempt() {
+		return attempt;
+	}
+
+	@Override
+	public String toString() {
+		return className + "." + method;
+	}
+}
@@ -0,0 +1,400 @@
+package farm;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+import org.openqa.selenium.json.JsonOutput;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import org.testng.xml.internal.Parser;
+
+import constants.Constant;
+import reportgeneration.ReportRenderer;
+import reportgeneration.ResultsSink;
+import utilities.ExtentReportUtility;
+
+/**
+ * WorkerFarm runs a suite across several JVMs of this machine. It splits the suite files into one
+ * {@link WorkUnit} per test method and starts -Dfarm.workers {@link FarmWorker} processes, which
+ * pull units from a shared queue over a loopback socket one at a time, so a fast worker simply
+ * takes more units. Results stream back as each unit finishes and are written to the results
+ * file the report is rendered from. A worker that dies or exceeds -Dfarm.unit.timeout.seconds is
+ * replaced, and its unit is handed out again up to -Dfarm.attempts times. Every -D option of this
+ * JVM is passed on to the workers:
+ *
+ * <pre>
+ * java -Dfarm.workers=8 -Dstub=true -cp ... farm.WorkerFarm [suite.xml ...]
+ * </pre>
+ */
+public class WorkerFarm {
+	private static final Logger LOG = LogManager.getLogger(WorkerFarm.class);
+	private static final int ATTEMPTS = Integer.getInteger("farm.attempts", 2);
+	private static final long UNITTIMEOUTMILLIS = TimeUnit.SECONDS.toMillis(Integer.getInteger("farm.unit.timeout.seconds", 600));
+	private static final long POLLMILLIS = 200;
+	private static final Json JSON = new Json();
+
+	private final BlockingDeque<WorkUnit> queue = new LinkedBlockingDeque<>();
+	private final AtomicInteger unfinished = new AtomicInteger();
+	private final AtomicInteger workerIds = new AtomicInteger();
+	private final AtomicLong testIds = new AtomicLong();
+	private final Map<Integer, Worker> workers = new ConcurrentHashMap<>();
+	private final ResultsSink sink;
+	private ServerSocket server;
+	private int replacements;
+	private int failures;
+
+	/**
+	 * A worker process and the unit it is running, if any.
+	 */
+	private static final class Worker {
+		final int id;
+		final Process process;
+		volatile WorkUnit running;
+		volatile long runningSince;
+		volatile boolean replaced;
+		int units;
+		int tests;
+		int crashes;
+
+		Worker(int id, Process process) {
+			this.id = id;
+			this.process = process;
+		}
+	}
+
+	private WorkerFarm(List<WorkUnit> units) {
+		queue.addAll(units);
+		unfinished.set(units.size());
+		sink = new ResultsSink(Paths.get(ExtentReportUtility.RESULTSFILE));
+	}
+
+	public static void main(String[] args) throws IOException {
+		List<XmlSuite> suites = new ArrayList<>();
+		for (String suiteFile : args.length > 0 ? Arrays.asList(args) : List.of("testng.xml")) {
+			suites.addAll(new Parser(suiteFile).parseToList());
+		}
+		List<WorkUnit> units = units(suites);
+		LOG.info("Running {} units on {} workers", units.size(), Constant.FARMWORKERS);
+		int failed = new WorkerFarm(units).run();
+		System.exit(failed == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Expands the suites into one unit per enabled @Test method, honouring included methods and groups.
+	 *
+	 * @param suites The parsed suite files
+	 * @return The units in suite order, then by priority and name within a class
+	 */
+	static List<WorkUnit> units(List<XmlSuite> suites) {
+		List<WorkUnit> units = new ArrayList<>();
+		for (XmlSuite suite : suites) {
+			for (XmlTest xmlTest : suite.getTests()) {
+				for (XmlClass xmlClass : xmlTest.getXmlClasses()) {
+					List<String> included = new ArrayList<>();
+					for (XmlInclude include : xmlClass.getIncludedMethods()) {
+						included.add(include.getName());
+					}
+					List<Method> methods = new ArrayList<>(Arrays.asList(xmlClass.getSupportClass().getMethods()));
+					methods.sort(Comparator.comparingInt((Method method) -> priority(method)).thenComparing(Method::getName));
+					for (Method method : methods) {
+						Test test = method.getAnnotation(Test.class);
+						if (test == null || !test.enabled() || (!included.isEmpty() && !included.contains(method.getName()))
+								|| xmlClass.getExcludedMethods().contains(method.getName())
+								|| !inGroups(Arrays.asList(test.groups()), xmlTest)) {
+							continue;
+						}
+						units.add(new WorkUnit(units.size() + 1, xmlTest.getName(), xmlClass.getName(), method.getName(),
+								xmlTest.getAllParameters(), 1));
+					}
+				}
+			}
+		}
+		return units;
+	}
+
+	private static int priority(Method method) {
+		Test test = method.getAnnotation(Test.class);
+		return test == null ? 0 : test.priority();
+	}
+
+	private static boolean inGroups(List<String> groups, XmlTest xmlTest) {
+		if (!Collections.disjoint(groups, xmlTest.getExcludedGroups())) {
+			return false;
+		}
+		return xmlTest.getIncludedGroups().isEmpty() || !Collections.disjoint(groups, xmlTest.getIncludedGroups());
+	}
+
+	//Runs every unit and renders the report, returning the number of failed tests
+	private int run() throws IOException {
+		server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		Thread acceptor = new Thread(this::accept, "farm-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		for (int i = 0; i < Constant.FARMWORKERS && i < unfinished.get(); i++) {
+			launch();
+		}
+		try {
+			supervise();
+		} finally {
+			server.close();
+			for (Worker worker : workers.values()) {
+				try {
+					if (!worker.process.waitFor(30, TimeUnit.SECONDS)) {
+						worker.process.destroyForcibly();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					worker.process.destroyForcibly();
+				}
+			}
+		}
+		synchronized (sink) {
+			sink.summary("Worker farm", summaryTable());
+			sink.checkpoint();
+			sink.close();
+		}
+		int tests = ReportRenderer.render(Paths.get(ExtentReportUtility.RESULTSFILE), ExtentReportUtility.REPORTFILE);
+		LOG.info("{} tests, {} failed, {} workers replaced; report at {}", tests, failures, replacements,
+				ExtentReportUtility.REPORTFILE);
+		return failures;
+	}
+
+	//Replaces dead and hung workers until every unit has finished or no worker can be started any more
+	private void supervise() {
+		while (unfinished.get() > 0) {
+			int alive = 0;
+			for (Worker worker : workers.values()) {
+				if (worker.process.isAlive()) {
+					alive++;
+					if (worker.running != null && System.currentTimeMillis() - worker.runningSince > UNITTIMEOUTMILLIS) {
+						LOG.warn("Worker {} exceeded {} ms on {}, killing it", worker.id, UNITTIMEOUTMILLIS, worker.running);
+						worker.process.destroyForcibly();//its connection closes and the unit is requeued
+					}
+				} else if (!worker.replaced) {
+					worker.replaced = true;
+					if (replacements < Constant.FARMWORKERS && unfinished.get() > 0) {
+						LOG.warn("Worker {} exited with {}, starting a replacement", worker.id, worker.process.exitValue());
+						replacements++;
+						launch();
+						alive++;
+					}
+				}
+			}
+			if (alive == 0) {
+				abandonQueued("No worker left to run it");
+			}
+			try {
+				Thread.sleep(POLLMILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				abandonQueued("Interrupted");
+				return;
+			}
+		}
+	}
+
+	private void launch() {
+		int id = workerIds.incrementAndGet();
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			//every worker cleans up its own test data, deferred retries need the Listener of a whole suite
+			if (argument.startsWith("-D") && !argument.startsWith("-Drun.id=") && !argument.startsWith("-Dretry.deferred")) {
+				command.add(argument);
+			}
+		}
+		command.add("-Drun.id=" + Constant.RUNID + "-w" + id);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(FarmWorker.class.getName());
+		command.add(String.valueOf(server.getLocalPort()));
+		command.add(String.valueOf(id));
+		File log = new File(Constant.FARMFOLDER, "worker-" + id + ".log");
+		try {
+			log.getParentFile().mkdirs();
+			Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+			workers.put(id, new Worker(id, process));
+		} catch (IOException e) {
+			LOG.error("Worker {} could not be started: {}", id, e.toString());
+		}
+	}
+
+	private void accept() {
+		while (!server.isClosed()) {
+			try {
+				Socket socket = server.accept();
+				Thread connection = new Thread(() -> serve(socket), "farm-connection");
+				connection.setDaemon(true);
+				connection.start();
+			} catch (IOException e) {
+				return;//closed once every unit has finished
+			}
+		}
+	}
+
+	//One connection per worker: hands out units and collects their results
+	private void serve(Socket socket) {
+		Worker worker = null;
+		List<Map<String, Object>> results = new ArrayList<>();
+		try (socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				Map<String, Object> message = JSON.toType(line, Json.MAP_TYPE);
+				String type = String.valueOf(message.get("type"));
+				if ("ready".equals(type)) {
+					worker = workers.get(((Number) message.get("worker")).intValue());
+				} else if ("result".equals(type)) {
+					results.add(message);//kept until the unit is done, a crash must not leave half a unit behind
+					continue;
+				} else if ("done".equals(type) && worker != null && worker.running != null) {
+					finish(worker, results);
+					results.clear();
+				}
+				if (worker == null) {
+					return;
+				}
+				send(out, next(worker));
+			}
+		} catch (SocketException e) {
+			// the worker died, handled below
+		} catch (IOException | JsonException e) {
+			LOG.warn("Connection to worker {} failed: {}", worker == null ? "?" : worker.id, e.toString());
+		} finally {
+			if (worker != null && worker.running != null) {
+				requeue(worker);
+			}
+		}
+	}
+
+	//Blocks until a unit is available, or returns the stop message once nothing is left to run
+	private Map<String, Object> next(Worker worker) {
+		while (unfinished.get() > 0) {
+			try {
+				WorkUnit unit = queue.poll(POLLMILLIS, TimeUnit.MILLISECONDS);
+				if (unit != null) {
+					worker.runningSince = System.currentTimeMillis();
+					worker.running = unit;
+					return unit.toMessage();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		return Map.of("type", "stop");
+	}
+
+	private void finish(Worker worker, List<Map<String, Object>> results) {
+		synchronized (sink) {
+			for (Map<String, Object> result : results) {
+				long id = testIds.incrementAndGet();
+				String status = String.valueOf(result.get("status"));
+				sink.test(id, String.valueOf(result.get("class")), String.valueOf(result.get("name")), String.valueOf(result.get("description")),
+						String.valueOf(result.get("thread")), status, ((Number) result.get("start")).longValue(),
+						((Number) result.get("end")).longValue(), (String) result.get("error"));
+				if (result.get("screenshot") != null) {
+					sink.screenshot(id, String.valueOf(result.get("screenshot")));
+				}
+				if (result.get("log") != null) {
+					sink.log(id, String.valueOf(result.get("log")));
+				}
+				if ("FAIL".equals(status)) {
+					failures++;
+				}
+			}
+			worker.units++;
+			worker.tests += results.size();
+		}
+		worker.running = null;
+		unfinished.decrementAndGet();
+	}
+
+	//Hands the unit of a crashed worker out again, or reports it as failed once it has used up its attempts
+	private void requeue(Worker worker) {
+		WorkUnit unit = worker.running;
+		worker.running = null;
+		synchronized (sink) {
+			worker.crashes++;
+		}
+		if (unit.getAttempt() < ATTEMPTS) {
+			LOG.warn("Worker {} died running {}, requeueing it", worker.id, unit);
+			queue.addFirst(unit.nextAttempt());
+		} else {
+			fail(unit, "Worker " + worker.id + " died running this test on each of " + ATTEMPTS + " attempts, see "
+					+ Paths.get(Constant.FARMFOLDER, "worker-" + worker.id + ".log"));
+		}
+	}
+
+	private void abandonQueued(String reason) {
+		for (WorkUnit unit; (unit = queue.poll()) != null;) {
+			fail(unit, reason);
+		}
+	}
+
+	private void fail(WorkUnit unit, String reason) {
+		long now = System.currentTimeMillis();
+		synchronized (sink) {
+			sink.test(testIds.incrementAndGet(), unit.getClassName(), unit.getMethod(), unit.toString(), "farm", "FAIL", now, now, reason);
+			failures++;
+		}
+		unfinished.decrementAndGet();
+	}
+
+	private String[][] summaryTable() {
+		List<Worker> sorted = new ArrayList<>(workers.values());
+		sorted.sort(Comparator.comparingInt(worker -> worker.id));
+		String[][] table = new String[sorted.size() + 1][];
+		table[0] = new String[] { "Worker", "Units", "Tests", "Crashes", "Log" };
+		for (int i = 0; i < sorted.size(); i++) {
+			Worker worker = sorted.get(i);
+			Path log = Paths.get(Constant.FARMFOLDER, "worker-" + worker.id + ".log");
+			table[i + 1] = new String[] { "worker-" + worker.id, String.valueOf(worker.units),
+					String.valueOf(worker.tests), String.valueOf(worker.crashes), log.toString() };
+		}
+		return table;
+	}
+
+	private static void send(Writer out, Map<String, Object> message) throws IOException {
+		StringBuilder line = new StringBuilder();
+		try (JsonOutput output = JSON.newOutput(line)) {
+			output.setPrettyPrint(false);
+			output.write(message);
+		}
+		out.write(line.append('\n').toString());
+		out.flush();
+	}
+}
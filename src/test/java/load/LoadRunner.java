@@ -0,0 +1,245 @@
+package load;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.htmlunit.BrowserVersion;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import constants.Constant;
+import pages.HomePage;
+import pages.LoginPage;
+import pages.NewsPage;
+import stub.GroceryStubServer;
+import utilities.ExcelUtility;
+import utilities.LatencyHistogram;
+
+/**
+ * LoadRunner replays the admin journey of the functional tests, LoginPage to HomePage.manageNews
+ * to NewsPage.searchNews, as virtual users on the in-JVM HtmlUnit driver of browser=http. Journeys
+ * arrive at -Dload.rate per second, ramped up linearly over -Dload.rampup.seconds and kept up
+ * for -Dload.duration.seconds in total, with at most -Dload.users running at once; arrivals
+ * beyond that are counted as dropped. Every step is timed into a {@link LatencyHistogram} and the
+ * percentiles, throughput and error rates are printed and written to load-results/:
+ *
+ * <pre>
+ * java -Dstub=true -Dload.rate=20 -cp ... load.LoadRunner
+ * </pre>
+ *
+ * Users run on virtual threads when the JVM has them (Java 21+), otherwise on a cached pool.
+ */
+public class LoadRunner {
+	private static final Logger LOG = LogManager.getLogger(LoadRunner.class);
+	private static final int USERS = Integer.getInteger("load.users", 50);
+	private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "5"));
+	private static final int RAMPUPSECONDS = Integer.getInteger("load.rampup.seconds", 10);
+	private static final int DURATIONSECONDS = Integer.getInteger("load.duration.seconds", 60);
+	//The run fails when more journeys than this share fail
+	private static final double MAXERRORRATE = Double.parseDouble(System.getProperty("load.max.error.rate", "0.01"));
+	private static final long TICKMILLIS = 10;
+	private static final String JOURNEY = "journey";
+	private static final List<String> STEPS = List.of("open login", "sign in", "manage news", "search news", JOURNEY);
+
+	private final String loginUrl;
+	private final String username;
+	private final String password;
+	private final Semaphore users = new Semaphore(USERS);
+	private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+	private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+	private final LongAdder dropped = new LongAdder();
+
+	private LoadRunner(String loginUrl, String username, String password) {
+		this.loginUrl = loginUrl;
+		this.username = username;
+		this.password = password;
+		for (String step : STEPS) {
+			latencies.put(step, new LatencyHistogram());
+			errors.put(step, new LongAdder());
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		String baseUrl;
+		if (Constant.STUBSERVER) {
+			baseUrl = GroceryStubServer.acquire(Constant.STUBPORT);
+		} else {
+			Properties config = new Properties();
+			try (FileInputStream file = new FileInputStream(Constant.CONFIGFILE)) {
+				config.load(file);
+			}
+			baseUrl = System.getProperty("baseurl", config.getProperty("baseurl"));
+		}
+		Properties prop = new Properties();
+		try (FileInputStream file = new FileInputStream(Constant.CONFIGFILE)) {
+			prop.load(file);
+		}
+		LoadRunner runner = new LoadRunner(baseUrl + prop.getProperty("url"),
+				ExcelUtility.getStringData(1, 0, Constant.SHEETNAME), ExcelUtility.getStringData(1, 1, Constant.SHEETNAME));
+		double errorRate;
+		try {
+			errorRate = runner.run();
+		} finally {
+			if (Constant.STUBSERVER) {
+				GroceryStubServer.release();
+			}
+		}
+		System.exit(errorRate > MAXERRORRATE ? 1 : 0);
+	}
+
+	//Generates the arrivals, waits for the last journeys and reports; returns the journey error rate
+	private double run() throws IOException {
+		ExecutorService executor = userExecutor();
+		long start = System.nanoTime();
+		long end = start + TimeUnit.SECONDS.toNanos(DURATIONSECONDS);
+		double due = 0;
+		long last = start;
+		LOG.info("Load on {} at up to {}/s for {} s, ramp-up {} s, at most {} users", loginUrl, RATE, DURATIONSECONDS,
+				RAMPUPSECONDS, USERS);
+		try {
+			for (long now = start; now < end; now = System.nanoTime()) {
+				double elapsedSeconds = (now - start) / 1e9;
+				double rate = RAMPUPSECONDS == 0 ? RATE : RATE * Math.min(1, elapsedSeconds / RAMPUPSECONDS);
+				due += rate * (now - last) / 1e9;//from the time that really passed, sleep overshoots under load
+				last = now;
+				for (; due >= 1; due--) {
+					if (users.tryAcquire()) {
+						executor.execute(this::journey);
+					} else {
+						dropped.increment();//open model: a saturated system does not slow the arrivals down
+					}
+				}
+				Thread.sleep(TICKMILLIS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
+		}
+		try {
+			if (!executor.awaitTermination(2, TimeUnit.MINUTES)) {
+				LOG.warn("Journeys still running after 2 minutes are not counted");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return report((System.nanoTime() - start) / 1e9);
+	}
+
+	//One virtual user: a fresh in-JVM browser through the same page objects as LoginTest and NewsTest
+	private void journey() {
+		long start = System.nanoTime();
+		WebDriver driver = null;
+		try {
+			WebDriver browser = new HtmlUnitDriver(BrowserVersion.CHROME, true);
+			driver = browser;
+			step("open login", () -> {
+				browser.get(loginUrl);
+				return null;
+			});
+			HomePage home = step("sign in", () -> {
+				HomePage signedIn = new LoginPage(browser).enterusername(username).enterPassword(password).signIn();
+				if (browser.getCurrentUrl().endsWith("/admin/login")) {
+					throw new IllegalStateException("Login as " + username + " was rejected");
+				}
+				return signedIn;
+			});
+			NewsPage news = step("manage news", home::manageNews);
+			step("search news", () -> news.searchButton().searchText().searchNews());
+			latencies.get(JOURNEY).record((System.nanoTime() - start) / 1000);
+		} catch (RuntimeException e) {
+			errors.get(JOURNEY).increment();
+			LOG.debug("Journey failed: {}", e.toString());
+		} finally {
+			try {
+				if (driver != null) {
+					driver.quit();
+				}
+			} finally {
+				users.release();//a failed quit or launch must not cost the run a user
+			}
+		}
+	}
+
+	private <T> T step(String name, Supplier<T> action) {
+		long start = System.nanoTime();
+		try {
+			T result = action.get();
+			latencies.get(name).record((System.nanoTime() - start) / 1000);
+			return result;
+		} catch (RuntimeException e) {
+			errors.get(name).increment();
+			throw e;
+		}
+	}
+
+	private double report(double seconds) throws IOException {
+		List<String[]> rows = new ArrayList<>();
+		rows.add(new String[] { "Step", "Count", "Errors", "Error %", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Per second" });
+		for (String step : STEPS) {
+			LatencyHistogram histogram = latencies.get(step);
+			long failed = errors.get(step).sum();
+			long total = histogram.getCount() + failed;
+			rows.add(new String[] { step, String.valueOf(total), String.valueOf(failed),
+					format(total == 0 ? 0 : 100.0 * failed / total), format(histogram.getPercentile(50) / 1000.0),
+					format(histogram.getPercentile(90) / 1000.0), format(histogram.getPercentile(99) / 1000.0),
+					format(histogram.getMax() / 1000.0), format(histogram.getCount() / seconds) });
+		}
+		StringBuilder table = new StringBuilder();
+		StringBuilder csv = new StringBuilder();
+		for (String[] row : rows) {
+			table.append(String.format(Locale.ROOT, "%-12s %8s %7s %8s %9s %9s %9s %9s %11s%n", (Object[]) row));
+			csv.append(String.join(",", row)).append('\n');
+		}
+		long journeys = latencies.get(JOURNEY).getCount() + errors.get(JOURNEY).sum();
+		double errorRate = journeys == 0 ? 0 : (double) errors.get(JOURNEY).sum() / journeys;
+		System.out.print(table);
+		System.out.println(journeys + " journeys in " + format(seconds) + " s, " + dropped.sum()
+				+ " arrivals dropped at " + USERS + " users, error rate " + format(100 * errorRate) + "%");
+		Path file = Paths.get(Constant.LOADRESULTSFOLDER, Constant.RUNID + ".csv");
+		Files.createDirectories(file.getParent());
+		Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+		return errorRate;
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.1f", value);
+	}
+
+	//Executors.newVirtualThreadPerTaskExecutor() exists from Java 21; this build targets 17
+	private static ExecutorService userExecutor() {
+		try {
+			ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+			LOG.info("Virtual users run on virtual threads");
+			return executor;
+		} catch (ReflectiveOperationException e) {
+			AtomicInteger count = new AtomicInteger();
+			LOG.info("Virtual users run on platform threads, virtual threads need Java 21");
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "virtual-user-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
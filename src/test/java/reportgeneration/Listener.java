@@ -1,20 +1,50 @@
 package reportgeneration;
 
-import org.openqa.selenium.WebDriver;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 
-import com.aventstack.extentreports.ExtentReports;
-import com.aventstack.extentreports.ExtentTest;
-import com.aventstack.extentreports.Status;
-
+import base.AdaptiveConcurrency;
+import constants.Constant;
+import jfr.ReportFlushEvent;
+import pages.Navigator;
+import retry.DeferredRetry;
+import utilities.DriverMetrics;
+import utilities.DriverProvisioner;
 import utilities.ExtentReportUtility;
+import utilities.FlightRecorder;
+import utilities.PagePerformanceUtility;
+import utilities.ProcessReaper;
+import utilities.ScreenshotUtility;
+import utilities.TraceViewer;
 
-public class Listener implements ITestListener{
-	ExtentTest test;
-	ExtentReports extent = ExtentReportUtility.createExtentReports();
-	ThreadLocal<ExtentTest> extentTest = new ThreadLocal<ExtentTest>();
+public class Listener implements ITestListener, ISuiteListener{
+	private static final Logger LOG = LogManager.getLogger(Listener.class);
+	private static final String TESTIDATTRIBUTE = "reportTestId";
+	private static final Duration SCREENSHOTWRITETIMEOUT = Duration.ofSeconds(30);
+	private static final Duration REPORTFLUSHTIMEOUT = Duration.ofSeconds(60);
+	private static final AtomicLong TESTIDS = new AtomicLong();
+	private static final String METRICSFILE = "./extent-reports/webdriver-metrics.prom";
+	private static final int METRICSSUMMARYROWS = 25;
+	//Trend page written next to the report, linked from its "Run history" node
+	private static final String TRENDFILE = "./extent-reports/run-trends.html";
+	//Test threads only publish events, the report itself is built on the publisher's writer thread
+	private final ReportPublisher publisher = ReportPublisher.getInstance();
+	private final RunHistory history = RunHistory.getInstance();
 
 	public void onTestStart(ITestResult result) {
 
@@ -22,6 +52,9 @@ public class Listener implements ITestListener{
 		//test = extent.createTest(result.getMethod().getMethodName());
 		// Get test method name
 	    String methodName = result.getMethod().getMethodName();
+	    if (DeferredRetry.isRerunning()) {
+	        methodName += " (rerun)";
+	    }
 
 	    // Get @Test description (can be null if not set)
 	    String description = result.getMethod().getDescription();
@@ -32,15 +65,17 @@ public class Listener implements ITestListener{
 	    }
 
 	    // Create test with name and description
-	    test = extent.createTest(methodName, description);
-		extentTest.set(test);
+	    long testId = TESTIDS.incrementAndGet();
+		result.setAttribute(TESTIDATTRIBUTE, testId);
+		publisher.publish(TestEvent.started(testId, result.getTestClass().getName(), methodName, description));
 
 	}
 
 	public void onTestSuccess(ITestResult result) {
 
 		ITestListener.super.onTestSuccess(result);
-		extentTest.get().log(Status.PASS, "Test Passed");
+		publisher.publish(TestEvent.passed(testId(result)));
+		history.record(result);
 
 	}
 	/*
@@ -67,16 +102,15 @@ public class Listener implements ITestListener{
 	  public void onTestFailure(ITestResult result) {
 	  
 	  ITestListener.super.onTestFailure(result);
-	  extentTest.get().log(Status.FAIL,
-	  "Test Failed");
-	  extentTest.get().fail(result.getThrowable());
+	  publisher.publish(TestEvent.failed(testId(result), result.getThrowable()));
+	  history.record(result);
 	  }
 	 
 
 	public void onTestSkipped(ITestResult result) {
 		ITestListener.super.onTestSkipped(result);
-		extentTest.get().log(Status.SKIP, "Test Skipped");
-		String testMethodName = result.getMethod().getMethodName();
+		publisher.publish(TestEvent.skipped(testId(result)));
+		history.record(result);
 
 	}
 
@@ -98,6 +132,141 @@ public class Listener implements ITestListener{
 	public void onFinish(ITestContext context) {
 
 		ITestListener.super.onFinish(context);
-		extent.flush();
+		ScreenshotUtility.awaitPendingWrites(SCREENSHOTWRITETIMEOUT);
+		for (ITestResult result : context.getFailedTests().getAllResults()) {
+			attachScreenshot(result);
+			attachFlightRecording(result);
+			attachTrace(result);
+			attachLog(result);
+		}
+		flushReport();
+	}
+
+	//Run-level sections are added once, after every <test> of the suite has finished
+	public void onFinish(ISuite suite) {
+
+		ISuiteListener.super.onFinish(suite);
+		if (DeferredRetry.isRerunning()) {
+			return;//the deferred rerun is part of the suite that started it
+		}
+		DeferredRetry.runQueued();//normally already run by TestNGBase, before the suite's fixtures were torn down
+		if (!DeferredRetry.isEmpty()) {
+			publisher.publish(TestEvent.summary("Deferred reruns", DeferredRetry.summaryTable()));
+		}
+		if (!DriverMetrics.isEmpty()) {
+			publisher.publish(TestEvent.summary("WebDriver latency", DriverMetrics.summaryTable(METRICSSUMMARYROWS)));
+			try {
+				DriverMetrics.writePrometheus(Paths.get(METRICSFILE));
+			} catch (IOException e) {
+				LOG.warn("WebDriver metrics could not be written to {}: {}", METRICSFILE, e.toString());
+			}
+		}
+		if (!PagePerformanceUtility.isEmpty()) {
+			publisher.publish(TestEvent.summary("Page performance", PagePerformanceUtility.summaryTable()));
+		}
+		if (!Navigator.isEmpty()) {
+			publisher.publish(TestEvent.summary("Navigation", Navigator.summaryTable()));
+		}
+		if (!DriverProvisioner.isEmpty()) {
+			publisher.publish(TestEvent.summary("Driver provisioning", DriverProvisioner.summaryTable()));
+		}
+		if (!ProcessReaper.isEmpty()) {
+			publisher.publish(TestEvent.summary("Browser processes", ProcessReaper.summaryTable()));
+		}
+		if (AdaptiveConcurrency.getInstance().isUsed()) {
+			publisher.publish(TestEvent.summary("Adaptive concurrency", AdaptiveConcurrency.getInstance().summaryTable()));
+		}
+		publishRunHistory();
+		flushReport();
+	}
+
+	//Appends this run to the history, then reports regressions against earlier runs and links the trend page
+	private void publishRunHistory() {
+		try {
+			history.append();
+			List<RunHistory.Record> records = history.load();
+			List<RegressionDetector.Finding> findings = RegressionDetector.analyse(records, Constant.RUNID,
+					Constant.RUNHISTORYWINDOW);
+			TrendPage.write(Paths.get(TRENDFILE), records, findings);
+			String[][] table = new String[findings.size() + 2][];
+			table[0] = new String[] { "Test", "Finding", "Detail" };
+			for (int i = 0; i < findings.size(); i++) {
+				RegressionDetector.Finding finding = findings.get(i);
+				table[i + 1] = new String[] { finding.getTest(), finding.getKind(), finding.getDetail() };
+			}
+			table[table.length - 1] = new String[] { "<a href='" + Paths.get(TRENDFILE).getFileName() + "'>Trend page</a>",
+					findings.isEmpty() ? "No regressions" : findings.size() + " findings", "Run " + Constant.RUNID };
+			publisher.publish(TestEvent.summary("Run history", table));
+		} catch (IOException e) {
+			LOG.warn("Run history could not be updated in {}: {}", history.getFile(), e.toString());
+		}
+	}
+
+	private void flushReport() {
+		ReportFlushEvent event = new ReportFlushEvent();//time spent rendering the report as a gaframework.ReportFlush JFR event
+		event.begin();
+		publisher.flush(REPORTFLUSHTIMEOUT);
+		event.commit();
+	}
+
+	private long testId(ITestResult result) {
+		Object testId = result.getAttribute(TESTIDATTRIBUTE);
+		return testId instanceof Long ? (Long) testId : 0;
+	}
+
+	//Links the screenshot written in the background by TestNGBase.driverQuit to the failed test
+	private void attachScreenshot(ITestResult result) {
+		Object screenshot = result.getAttribute(Constant.SCREENSHOTATTRIBUTE);
+		if (!(screenshot instanceof CompletableFuture)) {
+			return;
+		}
+		CompletableFuture<?> write = (CompletableFuture<?>) screenshot;
+		if (!write.isDone() || write.isCompletedExceptionally()) {
+			publisher.publish(TestEvent.screenshot(testId(result), null));
+			return;
+		}
+		File file;
+		try {
+			file = ScreenshotUtility.view((String) write.join());
+		} catch (IOException | UncheckedIOException e) {
+			publisher.publish(TestEvent.screenshot(testId(result), null));
+			return;
+		}
+		Path reportFolder = new File(ExtentReportUtility.REPORTFILE).getAbsoluteFile().getParentFile().toPath().normalize();
+		String relativePath = reportFolder.relativize(file.getAbsoluteFile().toPath().normalize()).toString().replace('\\', '/');
+		publisher.publish(TestEvent.screenshot(testId(result), relativePath));
+	}
+
+	//Renders the viewer page of the failed test's command trace and links it
+	private void attachTrace(ITestResult result) {
+		Object trace = result.getAttribute(Constant.TRACEATTRIBUTE);
+		if (!(trace instanceof File)) {
+			return;
+		}
+		try {
+			File viewer = TraceViewer.write((File) trace);
+			Path reportFolder = new File(ExtentReportUtility.REPORTFILE).getAbsoluteFile().getParentFile().toPath().normalize();
+			String relativePath = reportFolder.relativize(viewer.getAbsoluteFile().toPath().normalize()).toString().replace('\\', '/');
+			publisher.publish(TestEvent.trace(testId(result), relativePath));
+		} catch (IOException e) {
+			LOG.warn("Command trace viewer could not be written for {}: {}", trace, e.toString());
+		}
+	}
+
+	//Hands the log kept in memory by TestLogAppender while the failed test ran to the report
+	private void attachLog(ITestResult result) {
+		Object log = result.getAttribute(Constant.TESTLOGATTRIBUTE);
+		if (log instanceof String) {
+			publisher.publish(TestEvent.log(testId(result), (String) log));
+		}
+	}
+
+	//Hands the steps kept in memory by the FlightRecorder to the report
+	@SuppressWarnings("unchecked")
+	private void attachFlightRecording(ITestResult result) {
+		Object recording = result.getAttribute(Constant.FLIGHTRECORDERATTRIBUTE);
+		if (recording instanceof List) {
+			publisher.publish(TestEvent.steps(testId(result), (List<FlightRecorder.Step>) recording));
+		}
 	}
 }
@@ -0,0 +1,173 @@
+package reportgeneration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import reportgeneration.RunHistory.Record;
+
+/**
+ * RegressionDetector compares the tests of one run with their earlier runs in the
+ * {@link RunHistory}. A test is reported as slower when its duration is an outlier against the
+ * rolling median of its earlier passing runs, measured with the median absolute deviation (MAD)
+ * so that one slow run in the window does not hide the next; it is reported as newly flaky when
+ * it only passed after a retry and none of its earlier runs did.
+ */
+public class RegressionDetector {
+
+	/**
+	 * Modified z-score above which a duration counts as an outlier (Iglewicz and Hoaglin).
+	 */
+	private static final double OUTLIERSCORE = 3.5;
+
+	/**
+	 * Scales the MAD so the score is comparable to a standard deviation for normal data.
+	 */
+	private static final double MADSCALE = 0.6745;
+
+	/**
+	 * A slowdown is only reported if it is also at least this large relative to the median.
+	 */
+	private static final double MINIMUMSLOWDOWN = 1.2;
+
+	/**
+	 * Earlier passing runs needed before durations are compared.
+	 */
+	private static final int MINIMUMSAMPLES = 5;
+
+	/**
+	 * One regression found in a run.
+	 */
+	public static final class Finding {
+		private final String test;
+		private final String kind;
+		private final String detail;
+
+		Finding(String test, String kind, String detail) {
+			this.test = test;
+			this.kind = kind;
+			this.detail = detail;
+		}
+
+		public String getTest() {
+			return test;
+		}
+
+		public String getKind() {
+			return kind;
+		}
+
+		public String getDetail() {
+			return detail;
+		}
+	}
+
+	/**
+	 * Groups the history by test, keeping the file order, i.e. oldest run first.
+	 *
+	 * @param history The records of all runs
+	 * @return The records of each test
+	 */
+	public static Map<String, List<Record>> byTest(List<Record> history) {
+		Map<String, List<Record>> tests = new LinkedHashMap<>();
+		for (Record record : history) {
+			tests.computeIfAbsent(record.getTest(), test -> new ArrayList<>()).add(record);
+		}
+		return tests;
+	}
+
+	/**
+	 * Finds the duration regressions and new flakiness of one run.
+	 *
+	 * @param history The records of all runs, oldest first
+	 * @param runId The run to check
+	 * @param window How many earlier runs of each test to compare against
+	 * @return The findings, in test order
+	 */
+	public static List<Finding> analyse(List<Record> history, String runId, int window) {
+		List<Finding> findings = new ArrayList<>();
+		for (List<Record> runs : byTest(history).values()) {
+			int index = lastIndexOf(runs, runId);
+			if (index < 0) {
+				continue;
+			}
+			Record latest = runs.get(index);
+			List<Record> earlier = runs.subList(Math.max(0, index - window), index);
+			Finding slower = slower(latest, earlier);
+			if (slower != null) {
+				findings.add(slower);
+			}
+			if (latest.isFlaky() && earlier.stream().noneMatch(Record::isFlaky)) {
+				findings.add(new Finding(latest.getTest(), "Newly flaky",
+						"passed after " + latest.getRetries() + " retries; no retries in the previous " + earlier.size() + " runs"));
+			}
+		}
+		return findings;
+	}
+
+	/**
+	 * Returns how often a test was flaky: the share of runs that passed only after a retry or
+	 * whose outcome differs from the run before.
+	 *
+	 * @param runs The runs of one test, oldest first
+	 * @return The flake rate between 0 and 1, or 0 if there are no runs
+	 */
+	public static double flakeRate(List<Record> runs) {
+		if (runs.isEmpty()) {
+			return 0;
+		}
+		int flaky = 0;
+		for (int i = 0; i < runs.size(); i++) {
+			Record run = runs.get(i);
+			if (run.isFlaky() || (i > 0 && !run.getStatus().equals(runs.get(i - 1).getStatus()))) {
+				flaky++;
+			}
+		}
+		return (double) flaky / runs.size();
+	}
+
+	/**
+	 * @return The median of the values, which are sorted in place
+	 */
+	static double median(double[] values) {
+		Arrays.sort(values);
+		int middle = values.length / 2;
+		return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+	}
+
+	private static Finding slower(Record latest, List<Record> earlier) {
+		if (!"PASS".equals(latest.getStatus())) {
+			return null;
+		}
+		double[] durations = earlier.stream().filter(run -> "PASS".equals(run.getStatus()))
+				.mapToDouble(Record::getDurationMillis).toArray();
+		if (durations.length < MINIMUMSAMPLES) {
+			return null;
+		}
+		double median = median(durations);
+		double[] deviations = new double[durations.length];
+		for (int i = 0; i < durations.length; i++) {
+			deviations[i] = Math.abs(durations[i] - median);
+		}
+		double mad = median(deviations);
+		double duration = latest.getDurationMillis();
+		double score = mad == 0 ? (duration > median ? Double.POSITIVE_INFINITY : 0)
+				: MADSCALE * (duration - median) / mad;
+		if (median == 0 || score <= OUTLIERSCORE || duration < median * MINIMUMSLOWDOWN) {
+			return null;
+		}
+		return new Finding(latest.getTest(), "Slower", String.format("%d ms against a median of %.0f ms (+%.0f%%, score %.1f)",
+				latest.getDurationMillis(), median, (duration / median - 1) * 100, score));
+	}
+
+	private static int lastIndexOf(List<Record> runs, String runId) {
+		for (int i = runs.size() - 1; i >= 0; i--) {
+			if (runs.get(i).getRunId().equals(runId)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
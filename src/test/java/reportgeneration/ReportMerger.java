@@ -0,0 +1,277 @@
+package reportgeneration;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+import org.openqa.selenium.json.JsonOutput;
+
+import utilities.ExtentReportUtility;
+
+/**
+ * ReportMerger merges the results files of shards, written by runs with -Dshard.id, into one
+ * results file, one Extent report and one JUnit XML file. The shards are read line by line and
+ * merged in time order with one buffered record per shard, so memory does not grow with the
+ * size of the shards. Test ids are renumbered, screenshots keep their paths relative to the
+ * report folder and run-level sections are kept per shard. The JUnit XML file takes the place of
+ * a merged testng-results.xml, which is not written: each testcase has its test class as
+ * classname and its shard as a property.
+ *
+ * <pre>
+ * java -cp ... reportgeneration.ReportMerger [results-1.jsonl results-2.jsonl ...]
+ * </pre>
+ *
+ * Without arguments every extent-reports/results-*.jsonl is merged. With Surefire forks, pass
+ * -Dshard.id=${surefire.forkNumber} in the argLine of the forks.
+ */
+public class ReportMerger {
+
+	private static final Json JSON = new Json();
+
+	/**
+	 * The next record of one shard.
+	 */
+	private static final class Head {
+		final String shard;
+		final BufferedReader reader;
+		Map<String, Object> record;
+		long time;
+
+		Head(String shard, BufferedReader reader) {
+			this.shard = shard;
+			this.reader = reader;
+		}
+
+		//Reads the next complete record, false at the end of the shard
+		boolean advance() throws IOException {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				try {
+					record = JSON.toType(line, Json.MAP_TYPE);
+				} catch (JsonException e) {
+					continue;// last line of a killed shard may be cut off
+				}
+				time = record.get("time") instanceof Number ? ((Number) record.get("time")).longValue() : 0;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		List<Path> shards = new ArrayList<>();
+		if (args.length > 0) {
+			for (String arg : args) {
+				shards.add(Paths.get(arg));
+			}
+		} else {
+			Path folder = Paths.get(ExtentReportUtility.MERGEDRESULTSFILE).toAbsolutePath().getParent();
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "results-*.jsonl")) {
+				files.forEach(shards::add);
+			}
+			shards.sort(Comparator.naturalOrder());
+		}
+		long started = System.nanoTime();
+		int tests = merge(shards, Paths.get(ExtentReportUtility.MERGEDRESULTSFILE), Paths.get(ExtentReportUtility.JUNITFILE));
+		ReportRenderer.render(Paths.get(ExtentReportUtility.MERGEDRESULTSFILE), ExtentReportUtility.MERGEDREPORTFILE);
+		System.out.println("Merged " + tests + " tests from " + shards.size() + " shards into "
+				+ ExtentReportUtility.MERGEDREPORTFILE + " and " + ExtentReportUtility.JUNITFILE + " in "
+				+ (System.nanoTime() - started) / 1_000_000 + " ms");
+	}
+
+	/**
+	 * Merges shard results files into one results file and a JUnit XML file.
+	 *
+	 * @param shards The results files of the shards; the shard id is taken from results-&lt;id&gt;.jsonl
+	 * @param results The merged results file to write
+	 * @param junit The JUnit XML file to write
+	 * @return The number of tests merged
+	 * @throws IOException If a file cannot be read or written
+	 */
+	public static int merge(List<Path> shards, Path results, Path junit) throws IOException {
+		PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparingLong((Head head) -> head.time));
+		List<BufferedReader> readers = new ArrayList<>();
+		Map<String, Long> ids = new HashMap<>();
+		Files.createDirectories(results.toAbsolutePath().getParent());
+		Files.createDirectories(junit.toAbsolutePath().getParent());
+		Path testcases = Files.createTempFile(junit.toAbsolutePath().getParent(), "junit-", ".part");
+		JUnitWriter junitWriter = new JUnitWriter(testcases);
+		try (Writer out = Files.newBufferedWriter(results, StandardCharsets.UTF_8)) {
+			for (Path shard : shards) {
+				BufferedReader reader = Files.newBufferedReader(shard, StandardCharsets.UTF_8);
+				readers.add(reader);
+				Head head = new Head(shardId(shard), reader);
+				if (head.advance()) {
+					heads.add(head);
+				}
+			}
+			while (!heads.isEmpty()) {
+				Head head = heads.poll();
+				Map<String, Object> record = head.record;
+				String type = String.valueOf(record.get("type"));
+				String key = head.shard + ':' + record.get("id");
+				if ("test".equals(type)) {
+					long id = ids.size() + 1L;
+					ids.put(key, id);
+					record.put("id", id);
+					record.put("shard", head.shard);
+					junitWriter.testcase(record);
+					write(out, record);
+				} else if ("summary".equals(type)) {
+					record.put("title", record.get("title") + " (shard " + head.shard + ")");
+					write(out, record);
+				} else if (!"checkpoint".equals(type) && ids.containsKey(key)) {
+					record.put("id", ids.get(key));//screenshots and steps follow their test within a shard
+					write(out, record);
+				}
+				if (head.advance()) {
+					heads.add(head);
+				}
+			}
+		} finally {
+			for (BufferedReader reader : readers) {
+				reader.close();
+			}
+			junitWriter.close();
+		}
+		junitWriter.writeSuite(junit, "Merged results of " + shards.size() + " shards");
+		Files.delete(testcases);
+		return ids.size();
+	}
+
+	//results-<id>.jsonl gives <id>, any other file name is used as it is
+	private static String shardId(Path shard) {
+		String name = shard.getFileName().toString();
+		if (name.startsWith("results-") && name.endsWith(".jsonl")) {
+			return name.substring("results-".length(), name.length() - ".jsonl".length());
+		}
+		return name;
+	}
+
+	private static void write(Writer out, Map<String, Object> record) throws IOException {
+		StringBuilder line = new StringBuilder();
+		try (JsonOutput output = JSON.newOutput(line)) {
+			output.setPrettyPrint(false);
+			output.write(record);
+		}
+		out.write(line.append('\n').toString());
+	}
+
+	/**
+	 * Streams &lt;testcase&gt; elements to a part file while counting them, because the counts
+	 * belong in the attributes of the enclosing &lt;testsuite&gt; written last.
+	 */
+	private static final class JUnitWriter {
+		private final Path part;
+		private final BufferedWriter out;
+		private final XMLStreamWriter xml;
+		private int tests;
+		private int failures;
+		private int skipped;
+		private long millis;
+
+		JUnitWriter(Path part) throws IOException {
+			this.part = part;
+			this.out = Files.newBufferedWriter(part, StandardCharsets.UTF_8);
+			try {
+				this.xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		void testcase(Map<String, Object> record) throws IOException {
+			long duration = ((Number) record.get("end")).longValue() - ((Number) record.get("start")).longValue();
+			String status = String.valueOf(record.get("status"));
+			tests++;
+			millis += duration;
+			try {
+				xml.writeCharacters("\n  ");
+				xml.writeStartElement("testcase");
+				//results files written before the class was recorded fall back to the shard
+				Object testClass = record.get("class") == null ? "shard-" + record.get("shard") : record.get("class");
+				xml.writeAttribute("classname", String.valueOf(testClass));
+				xml.writeAttribute("name", String.valueOf(record.get("name")));
+				xml.writeAttribute("time", seconds(duration));
+				xml.writeStartElement("properties");
+				xml.writeEmptyElement("property");
+				xml.writeAttribute("name", "shard");
+				xml.writeAttribute("value", String.valueOf(record.get("shard")));
+				xml.writeEndElement();
+				if ("FAIL".equals(status)) {
+					failures++;
+					String error = record.get("error") == null ? "" : String.valueOf(record.get("error"));
+					xml.writeStartElement("failure");
+					xml.writeAttribute("message", error.split("\n", 2)[0]);
+					xml.writeCharacters(error);
+					xml.writeEndElement();
+				} else if ("SKIP".equals(status)) {
+					skipped++;
+					xml.writeEmptyElement("skipped");
+				}
+				xml.writeEndElement();
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		void close() throws IOException {
+			try {
+				xml.close();
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+			out.close();
+		}
+
+		//Writes the testsuite element around the streamed testcases
+		void writeSuite(Path junit, String name) throws IOException {
+			Path written = Files.createTempFile(junit.toAbsolutePath().getParent(), "junit-", ".xml");
+			try (Writer writer = Files.newBufferedWriter(written, StandardCharsets.UTF_8)) {
+				XMLStreamWriter header = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+				header.writeStartDocument("UTF-8", "1.0");
+				header.writeCharacters("\n");
+				header.writeStartElement("testsuite");
+				header.writeAttribute("name", name);
+				header.writeAttribute("tests", String.valueOf(tests));
+				header.writeAttribute("failures", String.valueOf(failures));
+				header.writeAttribute("errors", "0");
+				header.writeAttribute("skipped", String.valueOf(skipped));
+				header.writeAttribute("time", seconds(millis));
+				header.writeCharacters("");//closes the start tag
+				header.flush();
+				try (BufferedReader testcases = Files.newBufferedReader(part, StandardCharsets.UTF_8)) {
+					testcases.transferTo(writer);
+				}
+				writer.write("\n</testsuite>\n");
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+			Files.move(written, junit, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		private static String seconds(long millis) {
+			return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+		}
+	}
+}
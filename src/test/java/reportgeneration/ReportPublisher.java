@@ -0,0 +1,205 @@
+package reportgeneration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import utilities.ExtentReportUtility;
+
+/**
+ * ReportPublisher decouples test threads from report writing.
+ * Test threads only append immutable {@link TestEvent}s to a lock-free queue; a single daemon
+ * thread drains it and streams every finished test to a {@link ResultsSink}, so the memory held
+ * during the run is limited to the tests currently executing; between flushes the results file is
+ * only checkpointed. The HTML report is rendered from the whole results file by
+ * {@link ReportRenderer} on flush, which Listener requests once at the end of each suite. That
+ * render reads every result written so far and holds them in ExtentReports until the report is
+ * written, so its time and memory grow with the number of tests.
+ */
+public final class ReportPublisher {
+
+	private static final Logger LOG = LogManager.getLogger(ReportPublisher.class);
+
+	private static final ReportPublisher INSTANCE = new ReportPublisher();
+
+	/**
+	 * How long the writer sleeps when the queue is empty before checking it again.
+	 */
+	private static final long IDLEPARKNANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	/**
+	 * A checkpoint forces the results file to disk after this many records or this much time.
+	 */
+	private static final int CHECKPOINTRECORDS = 50;
+	private static final long CHECKPOINTINTERVALMILLIS = TimeUnit.SECONDS.toMillis(10);
+
+	private final Queue<TestEvent> queue = new ConcurrentLinkedQueue<>();
+	private final Thread writer;
+	private final Path resultsFile = Paths.get(ExtentReportUtility.RESULTSFILE);
+
+	/**
+	 * Start events of tests that have not finished yet. Only used by the writer thread.
+	 */
+	private final Map<Long, TestEvent> running = new HashMap<>();
+	private ResultsSink sink;
+	private int checkpointRecords;
+	private long checkpointTime;
+
+	private ReportPublisher() {
+		writer = new Thread(this::drain, "report-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public static ReportPublisher getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Queues an event for the writer thread. Never blocks.
+	 *
+	 * @param event The event to publish
+	 */
+	public void publish(TestEvent event) {
+		queue.offer(event);
+		LockSupport.unpark(writer);
+	}
+
+	/**
+	 * Waits until every event published so far has been written to the results file, without
+	 * rendering the report.
+	 *
+	 * @param timeout The maximum time to wait
+	 * @return true if the events were written within the timeout
+	 */
+	public boolean awaitWritten(Duration timeout) {
+		return await(TestEvent::checkpoint, timeout);
+	}
+
+	/**
+	 * Waits until every event published so far has been written and the report rendered.
+	 *
+	 * @param timeout The maximum time to wait
+	 * @return true if the report was rendered within the timeout
+	 */
+	public boolean flush(Duration timeout) {
+		return await(TestEvent::flush, timeout);
+	}
+
+	private boolean await(Function<Runnable, TestEvent> marker, Duration timeout) {
+		CountDownLatch reached = new CountDownLatch(1);
+		publish(marker.apply(reached::countDown));
+		try {
+			return reached.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void drain() {
+		sink = new ResultsSink(resultsFile);
+		checkpointTime = System.currentTimeMillis();
+		while (true) {
+			TestEvent event = queue.poll();
+			if (event == null) {
+				checkpointIfDue();
+				LockSupport.parkNanos(this, IDLEPARKNANOS);
+				continue;
+			}
+			try {
+				write(event);
+				checkpointIfDue();
+			} catch (RuntimeException e) {
+				LOG.error("Report event {} could not be written: {}", event.getType(), e.toString());
+			}
+		}
+	}
+
+	private void write(TestEvent event) {
+		switch (event.getType()) {
+		case STARTED:
+			running.put(event.getTestId(), event);
+			break;
+		case PASSED:
+			finish(event, "PASS");
+			break;
+		case FAILED:
+			finish(event, "FAIL");
+			break;
+		case SKIPPED:
+			finish(event, "SKIP");
+			break;
+		case SCREENSHOT:
+			sink.screenshot(event.getTestId(), event.getScreenshotPath());
+			break;
+		case TRACE:
+			sink.trace(event.getTestId(), event.getTracePath());
+			break;
+		case LOG:
+			sink.log(event.getTestId(), event.getLog());
+			break;
+		case STEPS:
+			sink.steps(event.getTestId(), event.getSteps());
+			break;
+		case SUMMARY:
+			sink.summary(event.getName(), event.getTable());
+			break;
+		case CHECKPOINT:
+			try {
+				checkpoint();
+			} finally {
+				event.getCallback().run();
+			}
+			break;
+		case FLUSH:
+			try {
+				checkpoint();
+				//O(all results so far): the whole file is read and rendered again
+				ReportRenderer.render(resultsFile, ExtentReportUtility.REPORTFILE);
+			} catch (IOException e) {
+				LOG.error("Report could not be rendered from {}: {}", resultsFile, e.toString());
+			} finally {
+				event.getCallback().run();
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void finish(TestEvent event, String status) {
+		TestEvent started = running.remove(event.getTestId());
+		if (started == null) {
+			return;
+		}
+		sink.test(event.getTestId(), started.getTestClass(), started.getName(), started.getDescription(), started.getThread(), status,
+				started.getTimestamp(), event.getTimestamp(), event.getThrowable());
+	}
+
+	private void checkpointIfDue() {
+		if (sink.getRecords() - checkpointRecords >= CHECKPOINTRECORDS
+				|| (sink.getRecords() > checkpointRecords
+						&& System.currentTimeMillis() - checkpointTime >= CHECKPOINTINTERVALMILLIS)) {
+			checkpoint();
+		}
+	}
+
+	private void checkpoint() {
+		sink.checkpoint();
+		checkpointRecords = sink.getRecords();
+		checkpointTime = System.currentTimeMillis();
+	}
+}
@@ -0,0 +1,162 @@
+package reportgeneration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.MediaEntityBuilder;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.CodeLanguage;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+
+import utilities.ExtentReportUtility;
+
+/**
+ * ReportRenderer builds the Extent HTML report from the JSON-lines file written by
+ * {@link ResultsSink}. It reads the file line by line, so it also works on the partial file
+ * left behind by a killed run:
+ *
+ * <pre>
+ * java -cp ... reportgeneration.ReportRenderer [results.jsonl] [report.html]
+ * </pre>
+ */
+public class ReportRenderer {
+
+	private static final Json JSON = new Json();
+
+	public static void main(String[] args) throws IOException {
+		Path results = Paths.get(args.length > 0 ? args[0] : ExtentReportUtility.RESULTSFILE);
+		String report = args.length > 1 ? args[1] : ExtentReportUtility.REPORTFILE;
+		int tests = render(results, report);
+		System.out.println("Rendered " + tests + " tests from " + results + " to " + report);
+	}
+
+	/**
+	 * Renders a results file into a new report, replacing the report file.
+	 *
+	 * @param results The JSON-lines results file
+	 * @param reportFile The HTML report to write
+	 * @return The number of tests in the report
+	 * @throws IOException If the results file cannot be read
+	 */
+	public static int render(Path results, String reportFile) throws IOException {
+		ExtentReports extent = ExtentReportUtility.newExtentReports(reportFile);
+		Map<Long, ExtentTest> tests = new HashMap<>();
+		try (BufferedReader reader = Files.newBufferedReader(results, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Map<String, Object> record;
+				try {
+					record = JSON.toType(line, Json.MAP_TYPE);
+				} catch (JsonException e) {
+					// last line of a killed run may be cut off
+					continue;
+				}
+				render(extent, tests, record);
+			}
+		}
+		extent.flush();
+		return tests.size();
+	}
+
+	static void render(ExtentReports extent, Map<Long, ExtentTest> tests, Map<String, Object> record) {
+		String type = String.valueOf(record.get("type"));
+		long id = ((Number) record.get("id")).longValue();
+		if ("summary".equals(type)) {
+			renderSummary(extent, String.valueOf(record.get("title")), (List<?>) record.get("table"));
+			return;
+		}
+		if ("test".equals(type)) {
+			ExtentTest test = extent.createTest(String.valueOf(record.get("name")),
+					String.valueOf(record.get("description")));
+			tests.put(id, test);
+			if (record.get("shard") != null) {
+				test.assignCategory("Shard " + record.get("shard"));//set by the ReportMerger
+			}
+			Status status = Status.valueOf(String.valueOf(record.get("status")));
+			if (status == Status.PASS) {
+				test.log(Status.PASS, "Test Passed");
+			} else if (status == Status.FAIL) {
+				test.log(Status.FAIL, "Test Failed");
+				if (record.get("error") != null) {
+					test.fail(MarkupHelper.createCodeBlock(String.valueOf(record.get("error"))));
+				}
+			} else {
+				test.log(Status.SKIP, "Test Skipped");
+			}
+			test.getModel().setStartTime(new Date(((Number) record.get("start")).longValue()));
+			test.getModel().setEndTime(new Date(((Number) record.get("end")).longValue()));
+			return;
+		}
+		ExtentTest test = tests.get(id);
+		if (test == null) {
+			return;
+		}
+		if ("screenshot".equals(type)) {
+			Object path = record.get("path");
+			if (path == null) {
+				test.log(Status.WARNING, "Screenshot could not be saved");
+			} else {
+				test.addScreenCaptureFromPath(String.valueOf(path));
+			}
+		} else if ("trace".equals(type)) {
+			test.info("<a href='" + record.get("path") + "' target='_blank'>Command trace</a>");
+		} else if ("log".equals(type)) {
+			test.info("Test log");
+			test.info(MarkupHelper.createCodeBlock(String.valueOf(record.get("text"))));
+		} else if ("steps".equals(type)) {
+			renderSteps(test, (List<?>) record.get("steps"));
+		}
+	}
+
+	//Run-level sections are shown as their own node holding a single table
+	private static void renderSummary(ExtentReports extent, String title, List<?> rows) {
+		String[][] table = new String[rows.size()][];
+		for (int i = 0; i < rows.size(); i++) {
+			List<?> row = (List<?>) rows.get(i);
+			table[i] = row.stream().map(String::valueOf).toArray(String[]::new);
+		}
+		extent.createTest(title).info(MarkupHelper.createTable(table));
+	}
+
+	//Writes the steps kept in memory by the FlightRecorder to the failed test
+	private static void renderSteps(ExtentTest test, List<?> steps) {
+		if (steps == null || steps.isEmpty()) {
+			return;
+		}
+		String[][] table = new String[steps.size() + 1][];
+		table[0] = new String[] { "Time", "Action", "Locator", "URL" };
+		for (int i = 0; i < steps.size(); i++) {
+			Map<?, ?> step = (Map<?, ?>) steps.get(i);
+			table[i + 1] = new String[] { Instant.ofEpochMilli(((Number) step.get("timestamp")).longValue()).toString(),
+					String.valueOf(step.get("action")), String.valueOf(step.get("locator")),
+					String.valueOf(step.get("url")) };
+		}
+		test.info("Last " + steps.size() + " steps before the failure");
+		test.info(MarkupHelper.createTable(table));
+		for (Object entry : steps) {
+			Map<?, ?> step = (Map<?, ?>) entry;
+			if (step.get("screenshot") != null) {
+				test.info(step.get("action") + " " + step.get("locator"), MediaEntityBuilder
+						.createScreenCaptureFromBase64String(String.valueOf(step.get("screenshot"))).build());
+			}
+		}
+		Object dom = ((Map<?, ?>) steps.get(steps.size() - 1)).get("dom");
+		if (dom != null) {
+			test.info(MarkupHelper.createCodeBlock(String.valueOf(dom), CodeLanguage.XML));
+		}
+	}
+}
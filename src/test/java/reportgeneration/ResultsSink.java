@@ -0,0 +1,203 @@
+package reportgeneration;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+
+import utilities.FlightRecorder;
+
+/**
+ * ResultsSink appends report records to a JSON-lines file as tests finish.
+ * Every record is handed to the operating system as soon as it is written, so a killed JVM
+ * loses nothing that had finished; checkpoints additionally force the file to disk.
+ * Only used from one thread at a time: the report writer thread, or the WorkerFarm under its lock.
+ */
+public class ResultsSink implements AutoCloseable {
+
+	private static final Json JSON = new Json();
+
+	private final FileChannel channel;
+	private final Writer writer;
+	private int records;
+
+	/**
+	 * Opens the results file, replacing the results of a previous run.
+	 *
+	 * @param file The JSON-lines file to write
+	 */
+	public ResultsSink(Path file) {
+		try {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the record of a finished test.
+	 */
+	public void test(long id, String testClass, String name, String description, String thread, String status, long start,
+			long end, Throwable throwable) {
+		String error = null;
+		if (throwable != null) {
+			StringWriter trace = new StringWriter();
+			throwable.printStackTrace(new PrintWriter(trace));
+			error = trace.toString();
+		}
+		test(id, testClass, name, description, thread, status, start, end, error);
+	}
+
+	/**
+	 * Writes the record of a finished test whose stack trace is already text, e.g. one run in another JVM.
+	 */
+	public void test(long id, String testClass, String name, String description, String thread, String status, long start,
+			long end, String error) {
+		Map<String, Object> record = record("test", id);
+		record.put("class", testClass);
+		record.put("name", name);
+		record.put("description", description);
+		record.put("thread", thread);
+		record.put("status", status);
+		record.put("start", start);
+		record.put("end", end);
+		if (error != null) {
+			record.put("error", error);
+		}
+		write(record);
+	}
+
+	/**
+	 * Writes the screenshot of a test; a null path records that the screenshot could not be saved.
+	 */
+	public void screenshot(long id, String path) {
+		Map<String, Object> record = record("screenshot", id);
+		record.put("path", path);
+		write(record);
+	}
+
+	/**
+	 * Writes the link to the command trace viewer of a failed test.
+	 */
+	public void trace(long id, String path) {
+		Map<String, Object> record = record("trace", id);
+		record.put("path", path);
+		write(record);
+	}
+
+	/**
+	 * Writes the log of a failed test.
+	 */
+	public void log(long id, String text) {
+		Map<String, Object> record = record("log", id);
+		record.put("text", text);
+		write(record);
+	}
+
+	/**
+	 * Writes the flight recorder steps of a failed test.
+	 */
+	public void steps(long id, List<FlightRecorder.Step> steps) {
+		List<Map<String, Object>> serialised = new ArrayList<>(steps.size());
+		for (FlightRecorder.Step step : steps) {
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("timestamp", step.getTimestamp());
+			entry.put("action", step.getAction());
+			entry.put("locator", step.getLocator());
+			entry.put("url", step.getUrl());
+			if (step.getDomSnapshot() != null) {
+				entry.put("dom", step.getDomSnapshot());
+			}
+			if (step.getScreenshot() != null) {
+				entry.put("screenshot", Base64.getEncoder().encodeToString(step.getScreenshot()));
+			}
+			serialised.add(entry);
+		}
+		Map<String, Object> record = record("steps", id);
+		record.put("steps", serialised);
+		write(record);
+	}
+
+	/**
+	 * Writes a run-level report section, e.g. the WebDriver latency summary.
+	 */
+	public void summary(String title, String[][] table) {
+		Map<String, Object> record = record("summary", 0);
+		record.put("title", title);
+		List<List<String>> rows = new ArrayList<>(table.length);
+		for (String[] row : table) {
+			rows.add(Arrays.asList(row));
+		}
+		record.put("table", rows);
+		write(record);
+	}
+
+	/**
+	 * Writes a checkpoint marker and forces everything written so far to disk.
+	 */
+	public void checkpoint() {
+		Map<String, Object> record = record("checkpoint", 0);
+		record.put("records", records);
+		write(record);
+		try {
+			channel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return The number of records written since the file was opened
+	 */
+	public int getRecords() {
+		return records;
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+	private Map<String, Object> record(String type, long id) {
+		Map<String, Object> record = new LinkedHashMap<>();
+		record.put("type", type);
+		record.put("id", id);
+		record.put("time", System.currentTimeMillis());
+		return record;
+	}
+
+	private void write(Map<String, Object> record) {
+		try {
+			StringBuilder line = new StringBuilder();
+			try (JsonOutput output = JSON.newOutput(line)) {
+				output.setPrettyPrint(false);
+				output.write(record);
+			}
+			writer.write(line.append('\n').toString());
+			writer.flush();
+			records++;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
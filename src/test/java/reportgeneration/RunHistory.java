@@ -0,0 +1,220 @@
+package reportgeneration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.testng.ITestResult;
+import org.testng.internal.TestResult;
+
+import constants.Constant;
+import retry.DeferredRetry;
+
+/**
+ * RunHistory keeps the outcome of every test of every run in an append-only, tab-separated file
+ * that survives the run, unlike test-output/ and extent-reports/. Each line holds the run id,
+ * the run start, the test, its final status, the duration of its last attempt and how many times
+ * it was retried. Results are collected in memory during the run and appended in one write per
+ * suite, under a file lock so that parallel JVMs can share the file.
+ */
+public final class RunHistory {
+
+	private static final RunHistory INSTANCE = new RunHistory(Paths.get(Constant.RUNHISTORYFILE));
+	private static final String HEADER = "run\tstarted\ttest\tstatus\tdurationMs\tretries";
+
+	private final Path file;
+	private final Map<String, Record> current = new ConcurrentHashMap<>();
+	private final long started = System.currentTimeMillis();
+
+	/**
+	 * The outcome of one test in one run.
+	 */
+	public static final class Record {
+		private final String runId;
+		private final long started;
+		private final String test;
+		private final String status;
+		private final long durationMillis;
+		private final int retries;
+
+		Record(String runId, long started, String test, String status, long durationMillis, int retries) {
+			this.runId = runId;
+			this.started = started;
+			this.test = test;
+			this.status = status;
+			this.durationMillis = durationMillis;
+			this.retries = retries;
+		}
+
+		public String getRunId() {
+			return runId;
+		}
+
+		public long getStarted() {
+			return started;
+		}
+
+		public String getTest() {
+			return test;
+		}
+
+		public String getStatus() {
+			return status;
+		}
+
+		public long getDurationMillis() {
+			return durationMillis;
+		}
+
+		public int getRetries() {
+			return retries;
+		}
+
+		/**
+		 * @return true if the test passed, but only after being retried
+		 */
+		public boolean isFlaky() {
+			return "PASS".equals(status) && retries > 0;
+		}
+	}
+
+	RunHistory(Path file) {
+		this.file = file;
+	}
+
+	public static RunHistory getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Records one attempt of a test. Only a real retry counts: an attempt after one the retry
+	 * analyzer marked as retried, or an attempt of the deferred rerun. The status and duration are
+	 * those of the last attempt.
+	 *
+	 * @param result The result of the attempt
+	 */
+	public void record(ITestResult result) {
+		String test = testName(result);
+		current.compute(test, (key, previous) -> {
+			int retries = previous == null ? 0 : previous.retries;
+			if (previous != null && ("RETRIED".equals(previous.status) || DeferredRetry.isRerunning())) {
+				retries++;
+			}
+			String status = result.wasRetried() ? "RETRIED" : statusName(result.getStatus());
+			return new Record(Constant.RUNID, started, key, status, result.getEndMillis() - result.getStartMillis(),
+					retries);
+		});
+	}
+
+	/**
+	 * Appends the results recorded since the last call to the history file.
+	 *
+	 * @throws IOException If the file cannot be written
+	 */
+	public synchronized void append() throws IOException {
+		if (current.isEmpty()) {
+			return;
+		}
+		StringBuilder lines = new StringBuilder();
+		for (String test : new ArrayList<>(current.keySet())) {
+			Record record = current.remove(test);
+			lines.append(record.runId).append('\t').append(record.started).append('\t').append(record.test).append('\t')
+					.append(record.status).append('\t').append(record.durationMillis).append('\t')
+					.append(record.retries).append('\n');
+		}
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			channel.lock();//released when the channel is closed
+			if (channel.size() == 0) {
+				lines.insert(0, HEADER + '\n');
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Reads the whole history, oldest run first. Lines that cannot be parsed are skipped.
+	 *
+	 * @return Every record in the history file, or an empty list if there is none yet
+	 * @throws IOException If the file cannot be read
+	 */
+	public List<Record> load() throws IOException {
+		List<Record> records = new ArrayList<>();
+		if (!Files.exists(file)) {
+			return records;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] columns = line.split("\t");
+				if (columns.length != 6 || line.startsWith("run\t")) {
+					continue;
+				}
+				try {
+					records.add(new Record(columns[0], Long.parseLong(columns[1]), columns[2], columns[3],
+							Long.parseLong(columns[4]), Integer.parseInt(columns[5])));
+				} catch (NumberFormatException e) {
+					// a line cut off by a killed run
+				}
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * @return The history file
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Names a test by class and method, followed by the index and parameters of a data-provider
+	 * row and the browser it ran on, so that a cross-browser suite keeps one history per browser
+	 * and two rows with the same parameters keep one history each.
+	 */
+	public static String testName(ITestResult result) {
+		String name = result.getTestClass().getRealClass().getSimpleName() + "." + result.getMethod().getMethodName();
+		if (result.getParameters() != null && result.getParameters().length > 0) {
+			name += "#" + parameterIndex(result) + Arrays.toString(result.getParameters());
+		}
+		String browser = result.getTestContext().getCurrentXmlTest().getParameter("browser");
+		if (browser != null) {
+			name += " (" + browser + ")";
+		}
+		return name.replace('\t', ' ').replace('\n', ' ');
+	}
+
+	/**
+	 * @return The index of the data-provider row of the invocation, 0 if it has none
+	 */
+	public static int parameterIndex(ITestResult result) {
+		return result instanceof TestResult ? ((TestResult) result).getParameterIndex() : 0;
+	}
+
+	private static String statusName(int status) {
+		switch (status) {
+		case ITestResult.SUCCESS:
+			return "PASS";
+		case ITestResult.FAILURE:
+			return "FAIL";
+		default:
+			return "SKIP";
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package reportgeneration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.openqa.selenium.TimeoutException;
+import org.testng.Assert;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import reportgeneration.RunHistory.Record;
+
+//Runs a nested TestNG suite against a history file of its own, so the real run history is left alone
+public class RunHistoryTest {
+
+	@Test(description = "A repeated data-provider row keeps a history of its own and is not counted as a retry")
+	public void duplicateRowIsNotARetry() throws IOException {
+		Map<String, Record> records = run(DuplicateRows.class);
+		Assert.assertEquals(records.size(), 3, "Every row, even the repeated one, should have a record: " + records.keySet());
+		for (Record record : records.values()) {
+			Assert.assertEquals(record.getStatus(), "PASS", record.getTest());
+			Assert.assertEquals(record.getRetries(), 0, record.getTest() + " was never retried");
+			Assert.assertFalse(record.isFlaky(), record.getTest());
+		}
+	}
+
+	@Test(description = "Only the row that the retry analyzer retried counts a retry")
+	public void retriedRowCountsOneRetry() throws IOException {
+		Map<String, Record> records = run(FlakyRow.class);
+		Assert.assertEquals(records.size(), 2, records.keySet().toString());
+		Assert.assertEquals(records.get("FlakyRow.login#0[user]").getRetries(), 1);
+		Assert.assertTrue(records.get("FlakyRow.login#0[user]").isFlaky());
+		Assert.assertEquals(records.get("FlakyRow.login#1[user]").getRetries(), 0);
+	}
+
+	private static Map<String, Record> run(Class<?> testClass) throws IOException {
+		Path file = Files.createTempFile("run-history", ".tsv");
+		try {
+			RunHistory history = new RunHistory(file);
+			TestNG testng = new TestNG();
+			testng.setUseDefaultListeners(false);
+			testng.setVerbose(0);
+			testng.setTestClasses(new Class[] { testClass });
+			testng.addListener(new ITestListener() {
+				@Override
+				public void onTestSuccess(ITestResult result) {
+					history.record(result);
+				}
+
+				@Override
+				public void onTestFailure(ITestResult result) {
+					history.record(result);
+				}
+
+				@Override
+				public void onTestSkipped(ITestResult result) {
+					history.record(result);
+				}
+			});
+			testng.run();
+			history.append();
+			List<Record> records = history.load();
+			return records.stream().collect(Collectors.toMap(Record::getTest, record -> record));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	public static class DuplicateRows {
+		@DataProvider
+		public Object[][] rows() {
+			return new Object[][] { { "user", "password" }, { "username", "pass" }, { "user", "password" } };
+		}
+
+		@Test(dataProvider = "rows")
+		public void login(String username, String password) {
+		}
+	}
+
+	public static class FlakyRow {
+		private static final AtomicBoolean FAILED = new AtomicBoolean();
+
+		@DataProvider
+		public Object[][] rows() {
+			return new Object[][] { { "user" }, { "user" } };
+		}
+
+		//The first attempt of the first row times out once; the retry passes
+		@Test(dataProvider = "rows", retryAnalyzer = retry.Retry.class)
+		public void login(String username) {
+			if (!FAILED.getAndSet(true)) {
+				throw new TimeoutException("first attempt");
+			}
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package reportgeneration;
+
+import java.util.Collections;
+import java.util.List;
+
+import utilities.FlightRecorder;
+
+/**
+ * TestEvent is an immutable message published by the Listener on the test thread and
+ * consumed by the single report writer thread of {@link ReportPublisher}.
+ */
+public final class TestEvent {
+
+	public enum Type {
+		STARTED, PASSED, FAILED, SKIPPED, SCREENSHOT, TRACE, LOG, STEPS, SUMMARY, CHECKPOINT, FLUSH
+	}
+
+	private final Type type;
+	private final long testId;
+	private final long timestamp;
+	private final String thread;
+	private final String testClass;
+	private final String name;
+	private final String description;
+	private final Throwable throwable;
+	private final String screenshotPath;
+	private final List<FlightRecorder.Step> steps;
+	private final String[][] table;
+	private final Runnable callback;
+
+	private TestEvent(Type type, long testId, String name, String description, Throwable throwable,
+			String screenshotPath, List<FlightRecorder.Step> steps, String[][] table, Runnable callback) {
+		this(type, testId, null, name, description, throwable, screenshotPath, steps, table, callback);
+	}
+
+	private TestEvent(Type type, long testId, String testClass, String name, String description, Throwable throwable,
+			String screenshotPath, List<FlightRecorder.Step> steps, String[][] table, Runnable callback) {
+		this.type = type;
+		this.testId = testId;
+		this.timestamp = System.currentTimeMillis();
+		this.thread = Thread.currentThread().getName();
+		this.testClass = testClass;
+		this.name = name;
+		this.description = description;
+		this.throwable = throwable;
+		this.screenshotPath = screenshotPath;
+		this.steps = steps == null ? Collections.emptyList() : Collections.unmodifiableList(steps);
+		this.table = table;
+		this.callback = callback;
+	}
+
+	/**
+	 * @param testClass The fully qualified name of the test class
+	 */
+	public static TestEvent started(long testId, String testClass, String name, String description) {
+		return new TestEvent(Type.STARTED, testId, testClass, name, description, null, null, null, null, null);
+	}
+
+	public static TestEvent passed(long testId) {
+		return new TestEvent(Type.PASSED, testId, null, null, null, null, null, null, null);
+	}
+
+	public static TestEvent failed(long testId, Throwable throwable) {
+		return new TestEvent(Type.FAILED, testId, null, null, throwable, null, null, null, null);
+	}
+
+	public static TestEvent skipped(long testId) {
+		return new TestEvent(Type.SKIPPED, testId, null, null, null, null, null, null, null);
+	}
+
+	/**
+	 * @param screenshotPath Path of the screenshot relative to the report folder, or null if it was not saved
+	 */
+	public static TestEvent screenshot(long testId, String screenshotPath) {
+		return new TestEvent(Type.SCREENSHOT, testId, null, null, null, screenshotPath, null, null, null);
+	}
+
+	/**
+	 * @param viewerPath Path of the command trace viewer page relative to the report folder
+	 */
+	public static TestEvent trace(long testId, String viewerPath) {
+		return new TestEvent(Type.TRACE, testId, null, null, null, viewerPath, null, null, null);
+	}
+
+	/**
+	 * @param log The formatted log events of the failed test
+	 */
+	public static TestEvent log(long testId, String log) {
+		return new TestEvent(Type.LOG, testId, null, log, null, null, null, null, null);
+	}
+
+	public static TestEvent steps(long testId, List<FlightRecorder.Step> steps) {
+		return new TestEvent(Type.STEPS, testId, null, null, null, null, steps, null, null);
+	}
+
+	/**
+	 * A run-level section of the report, such as the WebDriver latency summary.
+	 *
+	 * @param title The title of the report section
+	 * @param table The rows of the section, the first row being the header
+	 */
+	public static TestEvent summary(String title, String[][] table) {
+		return new TestEvent(Type.SUMMARY, 0, title, null, null, null, null, table, null);
+	}
+
+	/**
+	 * @param callback Run by the writer thread once every earlier event has been written to the results file
+	 */
+	public static TestEvent checkpoint(Runnable callback) {
+		return new TestEvent(Type.CHECKPOINT, 0, null, null, null, null, null, null, callback);
+	}
+
+	/**
+	 * @param callback Run by the writer thread once every earlier event has been written and the report flushed
+	 */
+	public static TestEvent flush(Runnable callback) {
+		return new TestEvent(Type.FLUSH, 0, null, null, null, null, null, null, callback);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public long getTestId() {
+		return testId;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return The name of the thread that published the event
+	 */
+	public String getThread() {
+		return thread;
+	}
+
+	/**
+	 * @return The test class of a STARTED event
+	 */
+	public String getTestClass() {
+		return testClass;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Throwable getThrowable() {
+		return throwable;
+	}
+
+	public String getScreenshotPath() {
+		return screenshotPath;
+	}
+
+	/**
+	 * @return The trace viewer path of a TRACE event, carried in the same field as a screenshot path
+	 */
+	public String getTracePath() {
+		return screenshotPath;
+	}
+
+	/**
+	 * @return The test log of a LOG event, carried in the same field as a description
+	 */
+	public String getLog() {
+		return description;
+	}
+
+	public List<FlightRecorder.Step> getSteps() {
+		return steps;
+	}
+
+	public String[][] getTable() {
+		return table;
+	}
+
+	public Runnable getCallback() {
+		return callback;
+	}
+}
@@ -0,0 +1,107 @@
+package reportgeneration;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Core;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+
+/**
+ * TestLogAppender keeps the log events of the running test in memory, on the test's own thread,
+ * between {@link #start(String)} and {@link #stop(boolean)}. It is the only appender that receives
+ * debug events by default; they are laid out with the pattern only when the test fails, and the log
+ * of a passing test is dropped. Only the last -Dlog.buffer.events events (default
+ * 1000) of a test are kept. Configured as &lt;TestLog&gt; in log4j2.xml, synchronously, so that the
+ * buffer is complete when the test ends.
+ */
+@Plugin(name = "TestLog", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE)
+public final class TestLogAppender extends AbstractAppender {
+
+	//ThreadContext key of the running test, shown by %X{test} in the log pattern
+	public static final String TESTKEY = "test";
+	private static final int MAXEVENTS = Integer.getInteger("log.buffer.events", 1000);
+	private static final ThreadLocal<Buffer> BUFFER = new ThreadLocal<>();
+	//Layout of the configured appender, used to format a failed test's log
+	private static volatile Layout<? extends Serializable> format = PatternLayout.createDefaultLayout();
+
+	/**
+	 * The events of one test, oldest first.
+	 */
+	private static final class Buffer {
+		final Deque<LogEvent> events = new ArrayDeque<>();
+		int dropped;
+	}
+
+	private TestLogAppender(String name, Filter filter, Layout<? extends Serializable> layout) {
+		super(name, filter, layout, true, Property.EMPTY_ARRAY);
+	}
+
+	@PluginFactory
+	public static TestLogAppender createAppender(@PluginAttribute("name") String name,
+			@PluginElement("Layout") Layout<? extends Serializable> layout, @PluginElement("Filter") Filter filter) {
+		if (layout != null) {
+			format = layout;
+		}
+		return new TestLogAppender(name == null ? "TestLog" : name, filter, format);
+	}
+
+	@Override
+	public void append(LogEvent event) {
+		Buffer buffer = BUFFER.get();
+		if (buffer == null) {
+			return;//not a test thread, or between tests
+		}
+		if (buffer.events.size() >= MAXEVENTS) {
+			buffer.events.pollFirst();
+			buffer.dropped++;
+		}
+		buffer.events.addLast(event.toImmutable());
+	}
+
+	/**
+	 * Starts buffering the log events of the current thread and tags them with the test name.
+	 *
+	 * @param test The name of the test
+	 */
+	public static void start(String test) {
+		ThreadContext.put(TESTKEY, test);
+		BUFFER.set(new Buffer());
+	}
+
+	/**
+	 * Ends the buffering of the current thread.
+	 *
+	 * @param keep True if the test failed and its log is wanted
+	 * @return The formatted log of the test, or null if it is not kept or nothing was logged
+	 */
+	public static String stop(boolean keep) {
+		Buffer buffer = BUFFER.get();
+		BUFFER.remove();
+		ThreadContext.remove(TESTKEY);
+		if (!keep || buffer == null || buffer.events.isEmpty()) {
+			return null;
+		}
+		StringBuilder log = new StringBuilder();
+		if (buffer.dropped > 0) {
+			log.append("... ").append(buffer.dropped).append(" earlier events dropped\n");
+		}
+		Layout<? extends Serializable> layout = format;
+		for (LogEvent event : buffer.events) {
+			log.append(new String(layout.toByteArray(event), StandardCharsets.UTF_8));
+		}
+		return log.toString();
+	}
+}
@@ -0,0 +1,87 @@
+package reportgeneration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import reportgeneration.RegressionDetector.Finding;
+import reportgeneration.RunHistory.Record;
+
+/**
+ * TrendPage writes a single self-contained HTML page with one row per test: its recent status
+ * strip, a sparkline of its durations, its flake rate and the findings of the current run.
+ */
+public class TrendPage {
+
+	/**
+	 * Number of most recent runs drawn per test.
+	 */
+	private static final int RUNSSHOWN = 30;
+	private static final int SPARKWIDTH = 180;
+	private static final int SPARKHEIGHT = 24;
+
+	/**
+	 * Writes the trend page, replacing it if it exists.
+	 *
+	 * @param file The HTML file to write
+	 * @param history The records of all runs, oldest first
+	 * @param findings The findings of the current run
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void write(Path file, List<Record> history, List<Finding> findings) throws IOException {
+		StringBuilder html = new StringBuilder();
+		html.append("<!DOCTYPE html><html><head><meta charset='utf-8'><title>Test trends</title><style>")
+				.append("body{font-family:sans-serif;font-size:13px;margin:20px}table{border-collapse:collapse}")
+				.append("td,th{padding:4px 10px;border-bottom:1px solid #ddd;text-align:left;vertical-align:middle}")
+				.append(".s{display:inline-block;width:6px;height:14px;margin-right:1px}")
+				.append(".PASS{background:#3c3}.FAIL{background:#d33}.SKIP,.RETRIED{background:#bbb}.flaky{background:#fa0}")
+				.append(".finding{color:#d33;font-weight:bold}</style></head><body>")
+				.append("<h2>Test trends</h2><p>Last ").append(RUNSSHOWN).append(" runs per test, oldest on the left.</p>")
+				.append("<table><tr><th>Test</th><th>Runs</th><th>Status</th><th>Duration</th><th>Median ms</th>")
+				.append("<th>Latest ms</th><th>Flake rate</th><th>Findings</th></tr>");
+		for (Map.Entry<String, List<Record>> entry : RegressionDetector.byTest(history).entrySet()) {
+			List<Record> runs = entry.getValue();
+			List<Record> shown = runs.subList(Math.max(0, runs.size() - RUNSSHOWN), runs.size());
+			double median = RegressionDetector
+					.median(shown.stream().mapToDouble(Record::getDurationMillis).toArray());
+			html.append("<tr><td>").append(escape(entry.getKey())).append("</td><td>").append(runs.size())
+					.append("</td><td>");
+			for (Record run : shown) {
+				html.append("<span class='s ").append(run.isFlaky() ? "flaky" : run.getStatus()).append("' title='")
+						.append(escape(run.getRunId())).append(' ').append(run.getStatus()).append(" retries ")
+						.append(run.getRetries()).append("'></span>");
+			}
+			html.append("</td><td>").append(sparkline(shown)).append("</td><td>").append(Math.round(median))
+					.append("</td><td>").append(shown.get(shown.size() - 1).getDurationMillis()).append("</td><td>")
+					.append(Math.round(RegressionDetector.flakeRate(shown) * 100)).append("%</td><td class='finding'>");
+			for (Finding finding : findings) {
+				if (finding.getTest().equals(entry.getKey())) {
+					html.append(escape(finding.getKind() + ": " + finding.getDetail())).append("<br>");
+				}
+			}
+			html.append("</td></tr>");
+		}
+		html.append("</table></body></html>");
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		Files.write(file, html.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String sparkline(List<Record> runs) {
+		long max = runs.stream().mapToLong(Record::getDurationMillis).max().orElse(0);
+		StringBuilder points = new StringBuilder();
+		for (int i = 0; i < runs.size(); i++) {
+			double x = runs.size() == 1 ? SPARKWIDTH / 2.0 : (double) i * SPARKWIDTH / (runs.size() - 1);
+			double y = max == 0 ? SPARKHEIGHT : SPARKHEIGHT - (double) runs.get(i).getDurationMillis() * (SPARKHEIGHT - 2) / max;
+			points.append(String.format("%.1f,%.1f ", x, y));
+		}
+		return "<svg width='" + SPARKWIDTH + "' height='" + SPARKHEIGHT + "'><polyline fill='none' stroke='#36c' points='"
+				+ points.toString().trim() + "'/></svg>";
+	}
+
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("'", "&#39;");
+	}
+}
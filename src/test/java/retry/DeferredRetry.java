@@ -0,0 +1,183 @@
+package retry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.internal.TestResult;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import reportgeneration.Listener;
+import reportgeneration.RunHistory;
+
+//Deferred retry mode, enabled with -Dretry.deferred=true: instead of retrying inline, Retry queues the
+//failed invocation and the queue is run once, after the last test and before the suite's fixtures are
+//torn down (see TestNGBase), as a separate parallel TestNG run that reuses them.
+//Its results are reported by the same Listener; an invocation that passes on rerun is moved from the
+//failed to the retried results of the original run, like an inline retry that passed. That changes the
+//report and what TestNG reporters see, not what Surefire counted when the first attempt failed: under
+//mvn test a test that only passes on rerun still fails the build. Surefire's rerunFailingTestsCount is
+//not supported for TestNG, so use inline retries where the build result has to reflect the retry.
+public class DeferredRetry {
+	private static final Logger LOG = LogManager.getLogger(DeferredRetry.class);
+	private static final boolean ENABLED = Boolean.getBoolean("retry.deferred");
+	private static final int THREADS = Integer.getInteger("retry.deferred.threads", 5);
+	private static final String RERUNSUFFIX = " (rerun)";
+	private static final Queue<ITestResult> QUEUE = new ConcurrentLinkedQueue<>();
+	private static final List<String[]> OUTCOMES = new ArrayList<>();
+	//Set while the queue runs, so the rerun neither defers nor retries again
+	private static volatile boolean rerunning;
+
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	public static boolean isRerunning() {
+		return rerunning;
+	}
+
+	public static void defer(ITestResult result) {
+		QUEUE.add(result);
+	}
+
+	//Runs every queued invocation; the outcomes are kept for summaryTable()
+	public static synchronized void runQueued() {
+		if (rerunning || QUEUE.isEmpty()) {
+			return;
+		}
+		List<ITestResult> failures = new ArrayList<>();
+		for (ITestResult result; (result = QUEUE.poll()) != null;) {
+			failures.add(result);
+		}
+		Map<String, ITestResult> reruns = new ConcurrentHashMap<>();
+		TestNG testng = new TestNG();
+		testng.setUseDefaultListeners(false);
+		testng.setVerbose(0);
+		testng.setXmlSuites(List.of(suite(failures)));
+		testng.addListener(new Listener());
+		testng.addListener(new ITestListener() {
+			@Override
+			public void onTestSuccess(ITestResult result) {
+				reruns.put(key(result), result);
+			}
+
+			@Override
+			public void onTestFailure(ITestResult result) {
+				reruns.put(key(result), result);
+			}
+
+			@Override
+			public void onTestSkipped(ITestResult result) {
+				reruns.put(key(result), result);
+			}
+		});
+		LOG.info("Rerunning {} deferred failures with {} threads", failures.size(), THREADS);
+		rerunning = true;
+		try {
+			testng.run();
+		} finally {
+			rerunning = false;
+		}
+		for (ITestResult failure : failures) {
+			String test = key(failure);
+			ITestResult rerun = reruns.get(test);
+			String outcome = "Not rerun";
+			if (rerun != null && rerun.getStatus() == ITestResult.SUCCESS) {
+				outcome = "Passed on rerun";
+				markRetried(failure);
+			} else if (rerun != null) {
+				outcome = rerun.getStatus() == ITestResult.FAILURE ? "Failed on rerun" : "Skipped on rerun";
+			}
+			String firstFailure = String.valueOf(failure.getThrowable()).split("\n", 2)[0];
+			OUTCOMES.add(new String[] { test, firstFailure, outcome });
+		}
+	}
+
+	/**
+	 * @return True if nothing was rerun
+	 */
+	public static synchronized boolean isEmpty() {
+		return OUTCOMES.isEmpty();
+	}
+
+	/**
+	 * @return The first failure and rerun outcome of every deferred test; the first row is the header
+	 */
+	public static synchronized String[][] summaryTable() {
+		String[][] table = new String[OUTCOMES.size() + 1][];
+		table[0] = new String[] { "Test", "First failure", "Rerun" };
+		for (int i = 0; i < OUTCOMES.size(); i++) {
+			table[i + 1] = OUTCOMES.get(i);
+		}
+		return table;
+	}
+
+	//A rerun is matched to its failure by <test> as well, so the same method in two <test>s stays apart
+	private static String key(ITestResult result) {
+		String test = result.getTestContext().getCurrentXmlTest().getName();
+		if (rerunning && test.endsWith(RERUNSUFFIX)) {
+			test = test.substring(0, test.length() - RERUNSUFFIX.length());
+		}
+		return test + ": " + RunHistory.testName(result);
+	}
+
+	//One <test> per original <test>, keeping its parameters; data-provider rows are selected by index
+	private static XmlSuite suite(List<ITestResult> failures) {
+		XmlSuite suite = new XmlSuite();
+		suite.setName("Deferred retries");
+		suite.setParallel(XmlSuite.ParallelMode.METHODS);
+		suite.setThreadCount(THREADS);
+		Map<String, Map<String, Map<String, List<Integer>>>> tests = new LinkedHashMap<>();
+		Map<String, XmlTest> originals = new LinkedHashMap<>();
+		for (ITestResult failure : failures) {
+			XmlTest original = failure.getTestContext().getCurrentXmlTest();
+			originals.putIfAbsent(original.getName(), original);
+			List<Integer> rows = tests.computeIfAbsent(original.getName(), name -> new LinkedHashMap<>())
+					.computeIfAbsent(failure.getTestClass().getName(), name -> new LinkedHashMap<>())
+					.computeIfAbsent(failure.getMethod().getMethodName(), name -> new ArrayList<>());
+			if (failure.getMethod().isDataDriven() && failure instanceof TestResult) {
+				rows.add(((TestResult) failure).getParameterIndex());
+			}
+		}
+		for (Map.Entry<String, Map<String, Map<String, List<Integer>>>> test : tests.entrySet()) {
+			XmlTest xmlTest = new XmlTest(suite);
+			xmlTest.setName(test.getKey() + RERUNSUFFIX);
+			xmlTest.setParameters(originals.get(test.getKey()).getAllParameters());
+			List<XmlClass> classes = new ArrayList<>();
+			for (Map.Entry<String, Map<String, List<Integer>>> testClass : test.getValue().entrySet()) {
+				XmlClass xmlClass = new XmlClass(testClass.getKey());
+				List<XmlInclude> includes = new ArrayList<>();
+				for (Map.Entry<String, List<Integer>> method : testClass.getValue().entrySet()) {
+					includes.add(method.getValue().isEmpty() ? new XmlInclude(method.getKey())
+							: new XmlInclude(method.getKey(), method.getValue(), includes.size()));
+				}
+				xmlClass.setIncludedMethods(includes);
+				classes.add(xmlClass);
+			}
+			xmlTest.setXmlClasses(classes);
+		}
+		return suite;
+	}
+
+	//Same bookkeeping as an inline retry that passed: the first attempt counts as retried, not failed
+	private static void markRetried(ITestResult failure) {
+		ITestContext context = failure.getTestContext();
+		context.getFailedTests().removeResult(failure);
+		failure.setStatus(ITestResult.SKIP);
+		failure.setWasRetried(true);
+		context.getSkippedTests().addResult(failure);
+	}
+}
@@ -0,0 +1,101 @@
+package retry;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+import org.testng.SkipException;
+
+import constants.Constant;
+import reportgeneration.RegressionDetector;
+import reportgeneration.RunHistory;
+
+//IInvokedMethodListener: quarantines chronically flaky tests found in the run history.
+//A quarantined test still runs, so the history shows when it becomes stable again, but it is not
+//retried and a failure is reported as a skip instead of failing the build.
+//The history keeps every data-provider row by its index and counts only attempts the retry analyzer or the
+//deferred rerun made, so a repeated row is never mistaken for a retry.
+public class Quarantine implements IInvokedMethodListener, ISuiteListener {
+	private static final Logger LOG = LogManager.getLogger(Quarantine.class);
+	//Flake rate over the last runs above which a test is quarantined; -Dquarantine=false turns quarantining off
+	private static final double FLAKERATE = Double.parseDouble(System.getProperty("quarantine.flakerate", "0.3"));
+	private static final int MINIMUMRUNS = 5;
+	private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("quarantine", "true"));
+	private static volatile Map<String, Double> quarantined;
+
+	//Reads the history before this run appends to it
+	@Override
+	public void onStart(ISuite suite) {
+		quarantined();
+	}
+
+	@Override
+	public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (!method.isTestMethod() || testResult.getStatus() != ITestResult.FAILURE) {
+			return;
+		}
+		String test = RunHistory.testName(testResult);
+		Double flakeRate = quarantined().get(test);
+		if (flakeRate == null) {
+			return;
+		}
+		Throwable throwable = testResult.getThrowable();
+		LOG.warn("Quarantined test {} failed with {}", test, throwable == null ? "no exception" : throwable.toString());
+		testResult.setStatus(ITestResult.SKIP);
+		testResult.setThrowable(new SkipException(String.format("Quarantined, flake rate %.0f%% over the last runs: %s",
+				flakeRate * 100, throwable == null ? "" : throwable)));
+	}
+
+	/**
+	 * @param test A test name as written to the run history
+	 * @return true if the test is quarantined in this run
+	 */
+	public static boolean isQuarantined(String test) {
+		return quarantined().containsKey(test);
+	}
+
+	//Read once per JVM from the run history as it was before this run
+	private static Map<String, Double> quarantined() {
+		Map<String, Double> tests = quarantined;
+		if (tests != null) {
+			return tests;
+		}
+		synchronized (Quarantine.class) {
+			if (quarantined == null) {
+				quarantined = ENABLED ? load() : Collections.emptyMap();
+			}
+			return quarantined;
+		}
+	}
+
+	private static Map<String, Double> load() {
+		Map<String, Double> tests = new ConcurrentHashMap<>();
+		try {
+			for (Map.Entry<String, List<RunHistory.Record>> entry : RegressionDetector
+					.byTest(RunHistory.getInstance().load()).entrySet()) {
+				List<RunHistory.Record> runs = entry.getValue();
+				if (runs.size() < MINIMUMRUNS) {
+					continue;
+				}
+				double flakeRate = RegressionDetector
+						.flakeRate(runs.subList(Math.max(0, runs.size() - Constant.RUNHISTORYWINDOW), runs.size()));
+				if (flakeRate > FLAKERATE) {
+					tests.put(entry.getKey(), flakeRate);
+					LOG.info("Quarantining {} with a flake rate of {}%", entry.getKey(), Math.round(flakeRate * 100));
+				}
+			}
+		} catch (IOException e) {
+			LOG.warn("Run history could not be read, no tests are quarantined: {}", e.toString());
+		}
+		return tests;
+	}
+}
@@ -1,41 +1,134 @@
 package retry;
 
-	import org.apache.logging.log4j.LogManager;
-	import org.apache.logging.log4j.Logger;
-	import org.testng.IRetryAnalyzer;
-	import org.testng.ITestResult;
-	//IRetryAnalyzer: Implement retry mechanism
-	public class Retry implements IRetryAnalyzer {
-		//Logger: Interface to capture log
-		private static final Logger LOG = (Logger) LogManager.getLogger("Retry.class");
-		private static final int maxTry = 2;
-		private int count = 0;
-
-		@Override
-		public boolean retry(final ITestResult iTestResult) {
-			if (!iTestResult.isSuccess()) {
-				if (this.count < maxTry) {
-					LOG.info("Retrying test " + iTestResult.getName() + " with status "
-							+ getResultStatusName(iTestResult.getStatus()) + " for the " + (this.count + 1) + " time(s).");
-					this.count++;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+
+import jfr.RetryEvent;
+import reportgeneration.RunHistory;
+
+//IRetryAnalyzer: Implement retry mechanism
+//Only failures caused by a transient exception are retried, after an exponential backoff.
+//Every attempt runs with a new browser session, as @BeforeMethod/@AfterMethod run again for it.
+//With -Dretry.deferred=true failures are queued for one rerun after the suite instead, see DeferredRetry.
+public class Retry implements IRetryAnalyzer {
+	//Logger: Interface to capture log
+	private static final Logger LOG = LogManager.getLogger(Retry.class);
+	private static final int maxTry = Integer.getInteger("retry.max", 2);
+	//Delay before the first retry, doubled for every further attempt and spread by up to 50% random jitter
+	private static final long BACKOFFMILLIS = Long.getLong("retry.backoff.ms", 1000);
+	//Exceptions worth retrying, overridable with a comma-separated -Dretry.exceptions; subclasses and causes also match
+	private static final String DEFAULTTRANSIENTEXCEPTIONS = "org.openqa.selenium.TimeoutException,"
+			+ "org.openqa.selenium.StaleElementReferenceException,"
+			+ "org.openqa.selenium.ElementClickInterceptedException,"
+			+ "org.openqa.selenium.NoSuchSessionException,"
+			+ "org.openqa.selenium.SessionNotCreatedException,"
+			+ "org.openqa.selenium.remote.UnreachableBrowserException,"
+			+ "java.net.ConnectException,"
+			+ "java.net.SocketTimeoutException";
+	private static final List<Class<?>> TRANSIENTEXCEPTIONS = transientExceptions(
+			System.getProperty("retry.exceptions", DEFAULTTRANSIENTEXCEPTIONS));
+	//Attempts per data-provider row index, so every row, even a repeated one, gets its own retries
+	private final Map<Integer, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+	@Override
+	public boolean retry(final ITestResult iTestResult) {
+		if (iTestResult.isSuccess()) {
+			return false;
+		}
+		String test = RunHistory.testName(iTestResult);
+		Throwable throwable = iTestResult.getThrowable();
+		if (!isTransient(throwable)) {
+			LOG.info("Not retrying test {}: {} is not a transient failure", test, describe(throwable));
+			return false;
+		}
+		if (Quarantine.isQuarantined(test)) {
+			LOG.info("Not retrying quarantined test {}", test);
+			return false;
+		}
+		if (DeferredRetry.isRerunning()) {
+			return false;//the deferred rerun is the retry
+		}
+		if (DeferredRetry.isEnabled()) {
+			LOG.info("Deferring retry of test {} after {} to the end of the suite", test, describe(throwable));
+			DeferredRetry.defer(iTestResult);
+			return false;
+		}
+		int attempt = counts.computeIfAbsent(RunHistory.parameterIndex(iTestResult), key -> new AtomicInteger()).incrementAndGet();
+		if (attempt > maxTry) {
+			return false;
+		}
+		long backoff = backoff(attempt);
+		LOG.info("Retrying test {} with status {} after {}, attempt {} of {} in {} ms", test,
+				getResultStatusName(iTestResult.getStatus()), describe(throwable), attempt, maxTry, backoff);
+		RetryEvent event = new RetryEvent();//shows up as a gaframework.Retry JFR event
+		event.testName = iTestResult.getName();
+		event.attempt = attempt;
+		event.commit();
+		try {
+			Thread.sleep(backoff);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		return true;
+	}
+
+	public String getResultStatusName(final int status) {
+		String resultName = null;
+		if (status == 1) {
+			resultName = "SUCCESS";
+		}
+		if (status == 2) {
+			resultName = "FAILURE";
+		}
+		if (status == 3) {
+			resultName = "SKIP";
+		}
+		return resultName;
+	}
+
+	//True if the failure or any of its causes is one of the transient exceptions
+	public static boolean isTransient(Throwable throwable) {
+		for (Throwable cause = throwable; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+			for (Class<?> type : TRANSIENTEXCEPTIONS) {
+				if (type.isInstance(cause)) {
 					return true;
 				}
 			}
-			return false;
 		}
+		return false;
+	}
 
-		public String getResultStatusName(final int status) {
-			String resultName = null;
-			if (status == 1) {
-				resultName = "SUCCESS";
-			}
-			if (status == 2) {
-				resultName = "FAILURE";
+	private static long backoff(int attempt) {
+		long delay = BACKOFFMILLIS << Math.min(attempt - 1, 10);
+		return delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+	private static String describe(Throwable throwable) {
+		return throwable == null ? "no exception" : throwable.getClass().getSimpleName();
+	}
+
+	private static List<Class<?>> transientExceptions(String names) {
+		List<Class<?>> types = new ArrayList<>();
+		for (String name : names.split(",")) {
+			if (name.isBlank()) {
+				continue;
 			}
-			if (status == 3) {
-				resultName = "SKIP";
+			try {
+				types.add(Class.forName(name.trim(), false, Retry.class.getClassLoader()));
+			} catch (ClassNotFoundException e) {
+				LOG.warn("Ignoring unknown transient exception class {}", name.trim());
 			}
-			return resultName;
 		}
+		return types;
 	}
-
+}
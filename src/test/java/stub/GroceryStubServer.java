@@ -0,0 +1,304 @@
+package stub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * GroceryStubServer is a local stand-in for the grocery admin application, served by the JDK
+ * HttpServer. It reproduces the login, home, list-news and list-admin pages with the DOM the
+ * page objects expect, keeps created news and admin users in memory, and protects every form
+ * with a per-session _token field like the real application. Started by TestNGBase when the
+ * suite runs with -Dstub=true, or standalone:
+ *
+ * <pre>
+ * java -cp ... stub.GroceryStubServer [port]
+ * </pre>
+ */
+public class GroceryStubServer {
+
+	public static final String USERNAME = "admin";
+	public static final String PASSWORD = "admin";
+	private static final String SESSIONCOOKIE = "grocery_session";
+
+	private static GroceryStubServer instance;
+	private static int users;
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "grocery-stub");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+	private final AtomicInteger ids = new AtomicInteger();
+	//News text and "username:user type" of the admin users, by id in creation order
+	private final Map<Integer, String> news = new ConcurrentSkipListMap<>();
+	private final Map<Integer, String> admins = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Per-browser state, identified by the session cookie.
+	 */
+	private static final class Session {
+		final String token = UUID.randomUUID().toString().replace("-", "");
+		volatile boolean loggedIn;
+		volatile String flash;
+	}
+
+	private GroceryStubServer(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		for (String item : List.of("Fresh vegetables every morning", "Weekend offers on dairy products",
+				"Breaking: new store opening")) {
+			news.put(ids.incrementAndGet(), item);
+		}
+		admins.put(ids.incrementAndGet(), "admin:admin");
+		admins.put(ids.incrementAndGet(), "staff1:staff");
+		server.start();
+	}
+
+	public static void main(String[] args) throws IOException {
+		GroceryStubServer server = new GroceryStubServer(args.length > 0 ? Integer.parseInt(args[0]) : 8080);
+		System.out.println("Grocery stub running at " + server.getBaseUrl() + "/admin/login");
+	}
+
+	/**
+	 * Starts the shared server on first use; every call must be paired with {@link #release()}.
+	 *
+	 * @param port The port to listen on, 0 for any free port
+	 * @return The base URL of the server, e.g. http://127.0.0.1:51234
+	 * @throws IOException If the server cannot be started
+	 */
+	public static synchronized String acquire(int port) throws IOException {
+		if (instance == null) {
+			instance = new GroceryStubServer(port);
+		}
+		users++;
+		return instance.getBaseUrl();
+	}
+
+	/**
+	 * Stops the shared server once every user has released it.
+	 */
+	public static synchronized void release() {
+		if (instance != null && --users == 0) {
+			instance.server.stop(0);
+			instance.executor.shutdownNow();
+			instance = null;
+		}
+	}
+
+	public String getBaseUrl() {
+		return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			Session session = session(exchange);
+			String path = exchange.getRequestURI().getPath();
+			boolean post = "POST".equals(exchange.getRequestMethod());
+			Map<String, String> form = post ? form(exchange) : Map.of();
+			if (post && !session.token.equals(form.get("_token"))) {
+				send(exchange, 419, StubPages.error("Page Expired"));
+				return;
+			}
+			if (path.equals("/")) {
+				redirect(exchange, "/admin/login");
+				return;
+			}
+			if (path.equals("/admin/login") && !post) {
+				send(exchange, 200, StubPages.login(session.token, takeFlash(session)));
+				return;
+			}
+			if (path.equals("/admin/login")) {
+				if (USERNAME.equals(form.get("username")) && PASSWORD.equals(form.get("password"))) {
+					session.loggedIn = true;
+					redirect(exchange, "/admin");
+				} else {
+					session.flash = StubPages.alert("danger", "Invalid Username/Password");
+					redirect(exchange, "/admin/login");
+				}
+				return;
+			}
+			if (!path.startsWith("/admin")) {
+				send(exchange, 404, StubPages.error("Not Found"));
+				return;
+			}
+			if (!session.loggedIn) {
+				redirect(exchange, "/admin/login");
+				return;
+			}
+			route(exchange, session, path, post, form);
+		} catch (RuntimeException e) {
+			send(exchange, 500, StubPages.error(e.toString()));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void route(HttpExchange exchange, Session session, String path, boolean post, Map<String, String> form)
+			throws IOException {
+		switch ((post ? "POST " : "GET ") + path) {
+		case "GET /admin":
+		case "GET /admin/home":
+			send(exchange, 200, StubPages.home(news.size(), admins.size()));
+			break;
+		case "GET /admin/logout":
+			sessions.values().remove(session);
+			redirect(exchange, "/admin/login");
+			break;
+		case "GET /admin/list-news":
+			send(exchange, 200, StubPages.newsList(session.token, news, takeFlash(session)));
+			break;
+		case "POST /admin/news/index":
+			String search = form.getOrDefault("un", "").toLowerCase(Locale.ROOT);
+			Map<Integer, String> found = new TreeMap<>();
+			news.forEach((id, item) -> {
+				if (item.toLowerCase(Locale.ROOT).contains(search)) {
+					found.put(id, item);
+				}
+			});
+			send(exchange, 200, StubPages.newsList(session.token, found, ""));
+			break;
+		case "GET /admin/news/add":
+			send(exchange, 200, StubPages.newsAdd(session.token));
+			break;
+		case "POST /admin/news/add":
+			String text = form.getOrDefault("news", "").trim();
+			if (text.isEmpty()) {
+				session.flash = StubPages.alert("danger", "The news field is required.");
+			} else {
+				news.put(ids.incrementAndGet(), text);
+				session.flash = StubPages.alert("success", "News Created Successfully");
+			}
+			redirect(exchange, "/admin/list-news");
+			break;
+		case "GET /admin/list-admin":
+			send(exchange, 200, StubPages.adminList(session.token, admins, takeFlash(session)));
+			break;
+		case "POST /admin/list-admin":
+			String username = form.getOrDefault("username", "").trim();
+			String type = form.getOrDefault("user_type", "");
+			if (username.isEmpty() || form.getOrDefault("password", "").isEmpty() || type.isEmpty()) {
+				session.flash = StubPages.alert("danger", "All fields are required.");
+			} else if (addAdmin(username, type)) {
+				session.flash = StubPages.alert("success", "User Created Successfully");
+			} else {
+				session.flash = StubPages.alert("danger", "Username already exists.");
+			}
+			redirect(exchange, "/admin/list-admin");
+			break;
+		case "GET /admin/news/delete":
+			session.flash = news.remove(id(exchange)) == null ? StubPages.alert("danger", "News not found.")
+					: StubPages.alert("success", "News Deleted Successfully");
+			redirect(exchange, "/admin/list-news");
+			break;
+		case "GET /admin/user/delete":
+			session.flash = admins.remove(id(exchange)) == null ? StubPages.alert("danger", "User not found.")
+					: StubPages.alert("success", "User Deleted Successfully");
+			redirect(exchange, "/admin/list-admin");
+			break;
+		default:
+			send(exchange, 404, StubPages.error("Not Found"));
+			break;
+		}
+	}
+
+	private synchronized boolean addAdmin(String username, String type) {
+		if (admins.values().stream().anyMatch(admin -> admin.startsWith(username + ":"))) {
+			return false;
+		}
+		admins.put(ids.incrementAndGet(), username + ":" + type);
+		return true;
+	}
+
+	//The id query parameter of a delete link
+	private static Integer id(HttpExchange exchange) {
+		String query = exchange.getRequestURI().getQuery();
+		if (query != null) {
+			for (String parameter : query.split("&")) {
+				if (parameter.startsWith("id=")) {
+					try {
+						return Integer.valueOf(parameter.substring(3));
+					} catch (NumberFormatException e) {
+						return null;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	//Finds the session of the session cookie, or starts a new one and sets its cookie
+	private Session session(HttpExchange exchange) {
+		String cookies = exchange.getRequestHeaders().getFirst("Cookie");
+		if (cookies != null) {
+			for (String cookie : cookies.split(";")) {
+				String[] pair = cookie.trim().split("=", 2);
+				if (pair.length == 2 && pair[0].equals(SESSIONCOOKIE) && sessions.containsKey(pair[1])) {
+					return sessions.get(pair[1]);
+				}
+			}
+		}
+		String id = UUID.randomUUID().toString();
+		Session session = new Session();
+		sessions.put(id, session);
+		exchange.getResponseHeaders().add("Set-Cookie", SESSIONCOOKIE + "=" + id + "; Path=/; HttpOnly");
+		return session;
+	}
+
+	private static String takeFlash(Session session) {
+		String flash = session.flash;
+		session.flash = null;
+		return flash == null ? "" : flash;
+	}
+
+	private static Map<String, String> form(HttpExchange exchange) throws IOException {
+		Map<String, String> form = new HashMap<>();
+		try (InputStream body = exchange.getRequestBody()) {
+			String encoded = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+			for (String field : encoded.split("&")) {
+				String[] pair = field.split("=", 2);
+				if (!pair[0].isEmpty()) {
+					form.put(URLDecoder.decode(pair[0], StandardCharsets.UTF_8),
+							pair.length == 2 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "");
+				}
+			}
+		}
+		return form;
+	}
+
+	private static void redirect(HttpExchange exchange, String location) throws IOException {
+		exchange.getResponseHeaders().set("Location", location);
+		exchange.sendResponseHeaders(302, -1);
+	}
+
+	private static void send(HttpExchange exchange, int status, String html) throws IOException {
+		byte[] body = html.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+		exchange.getResponseHeaders().set("Cache-Control", "no-store");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package stub;
+
+import java.util.Map;
+
+/**
+ * StubPages renders the HTML of the {@link GroceryStubServer}. The markup mirrors the real
+ * application where the page objects locate elements: classes, ids, names and link texts.
+ */
+class StubPages {
+
+	private static final String STYLE = "<style>body{font-family:sans-serif;margin:0}"
+			+ ".fa{display:inline-block;width:12px;height:12px}.content{padding:16px}"
+			+ ".small-box{display:inline-block;width:220px;margin:8px;padding:12px;background:#17a2b8;color:#fff}"
+			+ ".small-box-footer{display:block;color:#fff}.dropdown-menu{position:absolute;background:#fff;padding:8px}"
+			+ ".alert-success{background:#28a745;color:#fff;padding:8px}.alert-danger{background:#dc3545;color:#fff;padding:8px}"
+			+ ".btn{display:inline-block;padding:6px 12px;margin:4px}</style>";
+
+	static String login(String token, String alert) {
+		return page("Login", "<div class='login-box'><p class='login-box-msg'>Sign in to start your session</p>" + alert
+				+ "<form action='/admin/login' method='post'>" + token(token)
+				+ "<input type='text' name='username' class='form-control' placeholder='Username' required>"
+				+ "<input type='password' name='password' class='form-control' placeholder='Password' required>"
+				+ "<button type='submit' class='btn btn-dark btn-block'>Sign In</button></form></div>");
+	}
+
+	static String home(int newsCount, int adminCount) {
+		return adminPage("Dashboard", "<div class='small-box bg-info'><div class='inner'><h3>" + adminCount
+				+ "</h3><p>Admin Users</p></div><a href='/admin/list-admin' class='small-box-footer'>More info</a></div>"
+				+ "<div class='small-box bg-info'><div class='inner'><h3>" + newsCount
+				+ "</h3><p>Manage News</p></div><a href='/admin/list-news' class='small-box-footer'>More info</a></div>");
+	}
+
+	static String newsList(String token, Map<Integer, String> news, String alert) {
+		StringBuilder rows = new StringBuilder();
+		news.forEach((id, item) -> rows.append("<tr><td>").append(escape(item)).append("</td><td>")
+				.append("<a href='/admin/news/delete?id=").append(id).append("' class='btn btn-sm btn-danger'>Delete</a>")
+				.append("</td></tr>"));
+		return adminPage("Manage News", "<a class='btn btn-rounded btn-danger' href='/admin/news/add'>New</a>"
+				+ "<a class='btn btn-rounded btn-primary' href='#' onclick=\"document.getElementById('search')"
+				+ ".style.display='block';return false;\">Search</a>"
+				+ "<a class='btn btn-rounded btn-warning' href='/admin/list-news'>Reset</a>" + alert
+				+ "<div id='search' style='display:none'><form method='post' action='/admin/news/index'>" + token(token)
+				+ "<input type='text' class='form-control' name='un' placeholder='Title'>"
+				+ "<button type='submit' class='btn btn-danger btn-fix' name='Search' value='sr'>Search</button></form></div>"
+				+ "<table class='table'><thead><tr><th>News</th><th>Action</th></tr></thead><tbody>" + rows + "</tbody></table>");
+	}
+
+	static String newsAdd(String token) {
+		return adminPage("Add News", "<form method='post' action='/admin/news/add'>" + token(token)
+				+ "<textarea id='news' name='news' class='form-control' placeholder='Enter the news'></textarea>"
+				+ "<button type='submit' class='btn btn-danger'>Save</button></form>");
+	}
+
+	static String adminList(String token, Map<Integer, String> admins, String alert) {
+		StringBuilder rows = new StringBuilder();
+		admins.forEach((id, admin) -> rows.append("<tr><td>").append(escape(admin.substring(0, admin.lastIndexOf(':'))))
+				.append("</td><td>").append(escape(admin.substring(admin.lastIndexOf(':') + 1))).append("</td><td>")
+				.append("<a href='/admin/user/delete?id=").append(id).append("' class='btn btn-sm btn-danger'>Delete</a>")
+				.append("</td></tr>"));
+		return adminPage("Admin Users", "<a class='btn btn-rounded btn-danger' href='#' onclick=\"document"
+				+ ".getElementById('collapsee').style.display='block';return false;\">New</a>" + alert
+				+ "<div id='collapsee' style='display:none'><form method='post' action='/admin/list-admin'>" + token(token)
+				+ "<input type='text' class='form-control' id='username' name='username'>"
+				+ "<input type='password' class='form-control' id='password' name='password'>"
+				+ "<select class='form-control' id='user_type' name='user_type'><option value=''>Select</option>"
+				+ "<option value='admin'>Admin</option><option value='partner'>Partner</option>"
+				+ "<option value='staff'>Staff</option></select>"
+				+ "<button type='submit' class='btn btn-block-sm btn-danger' name='Create'>Save</button></form></div>"
+				+ "<table class='table'><thead><tr><th>Username</th><th>User Type</th><th>Action</th></tr></thead><tbody>" + rows
+				+ "</tbody></table>");
+	}
+
+	static String alert(String type, String message) {
+		return "<div class='alert alert-" + type + " alert-dismissible'>" + escape(message) + "</div>";
+	}
+
+	static String error(String message) {
+		return page("Error", "<h1>" + escape(message) + "</h1>");
+	}
+
+	//Header with the admin dropdown holding the logout link, and the breadcrumb with the Home link
+	private static String adminPage(String title, String content) {
+		return page(title, "<nav class='main-header navbar'><ul class='navbar-nav'><li class='nav-item dropdown'>"
+				+ "<a class='nav-link' data-toggle='dropdown' href='#' onclick=\"var menu=this.nextElementSibling;"
+				+ "menu.style.display=menu.style.display==='none'?'block':'none';return false;\">Admin</a>"
+				+ "<div class='dropdown-menu' style='display:none'><a href='/admin/logout' class='dropdown-item'>"
+				+ "<i class='ace-icon fa fa-power-off'></i> Logout</a></div></li></ul></nav>"
+				+ "<div class='content'><ol class='breadcrumb'><li><a href='/admin/home'>Home</a></li><li>" + title
+				+ "</li></ol><h1>" + title + "</h1>" + content + "</div>");
+	}
+
+	private static String page(String title, String body) {
+		return "<!DOCTYPE html><html><head><meta charset='utf-8'><title>" + title + " | 7rmart supermarket</title>"
+				+ STYLE + "</head><body>" + body + "</body></html>";
+	}
+
+	private static String token(String token) {
+		return "<input type='hidden' name='_token' value='" + token + "'>";
+	}
+
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("'", "&#39;");
+	}
+}
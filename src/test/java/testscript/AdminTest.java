@@ -8,9 +8,9 @@ import constants.Constant;
 import constants.Messages;
 import pages.AdminPage;
 import pages.HomePage;
-import pages.LoginPage;
 import utilities.ExcelUtility;
 import utilities.FakerUtility;
+import utilities.TestDataTracker;
 
 public class AdminTest extends TestNGBase{
 	public HomePage homePage;
@@ -19,16 +19,14 @@ public class AdminTest extends TestNGBase{
 public void createAdmin() throws IOException{
 	String usernamevalue = ExcelUtility.getStringData(1, 0, Constant.SHEETNAME);//Data Driven approach: reading data from file
 	String passwordvalue = ExcelUtility.getStringData(1, 1, Constant.SHEETNAME);
-	LoginPage loginPage = new LoginPage(driver);
-	loginPage.enterusername(usernamevalue).enterPassword(passwordvalue);
-	//loginPage.enterPassword(passwordvalue);
-	homePage = loginPage.signIn();
+	apiLogin(usernamevalue, passwordvalue);//only the admin pages are driven through the browser
 	//removing AdminPage adminPage = new AdminPage(driver);
-	adminPage = homePage.adminInfo();//instead of adminPage.adminInfo();
+	adminPage = navigateTo(AdminPage.class);//deep link instead of homePage.adminInfo();
 	FakerUtility fakerUtility = new FakerUtility();
 	String randomusername = fakerUtility.createRandomUserName();
 	String randompassword = fakerUtility.createRandomPassword();
 	adminPage.newAdmin().adminUsername(randomusername).adminPassword(randompassword).adminDropdown().adminSave();
+	TestDataTracker.register(TestDataTracker.ADMIN, randomusername);//deleted at suite end
 	/*adminPage.adminUsername(randomusername);
 	adminPage.adminPassword(randompassword);
 	adminPage.adminDropdown();
@@ -27,7 +27,7 @@ public class HomeTest extends TestNGBase{
 		adminPage = homePage.adminButton();
 		loginPage = homePage.logOut();
 		String current = driver.getCurrentUrl();
-		String expected = "https://groceryapp.uniqassosiates.com/admin/login";
+		String expected = appUrl("/admin/login");
 		Assert.assertEquals(current, expected, Messages.LOGOUT_ASSERT);
 		}
 }
@@ -25,7 +25,7 @@ public void verifyLoginwithValidCredentials() throws IOException {
 	//added home =
 	home = loginPage.signIn();
 	String actual = driver.getCurrentUrl();
-	String expected = "https://groceryapp.uniqassosiates.com/admin";
+	String expected = appUrl("/admin");
 	Assert.assertEquals(actual, expected, Messages.VALID_CREDENTIAL_ASSERT);
 	}
 @Test(priority = 2, description = "To verify the login using invalid username and valid password")
@@ -35,7 +35,7 @@ String passwordvalue = ExcelUtility.getStringData(2, 1, Constant.SHEETNAME);
 LoginPage loginPage = new LoginPage(driver);
 loginPage.enterusername(usernamevalue).enterPassword(passwordvalue).signIn(); 
 String actual = driver.getCurrentUrl();
-String expected = "https://groceryapp.uniqassosiates.com/admin/login";
+String expected = appUrl("/admin/login");
 Assert.assertEquals(actual, expected, Messages.INVALID_CREDENTIALS_ASSERT);
 }
 @Test(priority = 3, description = "To verify the login using valid username and invalid password")
@@ -48,7 +48,7 @@ public void verifyLoginValidUsernameInvalidPassword() throws IOException {
 	/*loginPage.enterPassword(passwordvalue);
 	loginPage.signIn();*/	
 	String actual = driver.getCurrentUrl();
-	String expected = "https://groceryapp.uniqassosiates.com/admin/login";
+	String expected = appUrl("/admin/login");
 	Assert.assertEquals(actual, expected, Messages.INVALID_CREDENTIALS_ASSERT);
 }
 @Test(priority = 4, description = "To verify the login using invalid credentials", dataProvider = "loginProvider")
@@ -59,7 +59,7 @@ public void verifyLoginInvalidCredentials(String username, String password) thro
 	LoginPage loginPage = new LoginPage(driver);
 	loginPage.enterusername(username).enterPassword(password).signIn();
 	String actual = driver.getCurrentUrl();
-	String expected = "https://groceryapp.uniqassosiates.com/admin/login";
+	String expected = appUrl("/admin/login");
 	Assert.assertEquals(actual, expected, Messages.INVALID_CREDENTIALS_ASSERT);
 }
 //Data provider:
@@ -9,9 +9,10 @@ import base.TestNGBase;
 import constants.Constant;
 import constants.Messages;
 import pages.HomePage;
-import pages.LoginPage;
 import pages.NewsPage;
+import utilities.ApiUtility;
 import utilities.ExcelUtility;
+import utilities.TestDataTracker;
 
 public class NewsTest extends TestNGBase{
 	public HomePage homePage;
@@ -20,11 +21,11 @@ public class NewsTest extends TestNGBase{
 	public void addNews() throws IOException {
 		String usernamevalue = ExcelUtility.getStringData(1, 0, Constant.SHEETNAME);//Data Driven approach: reading data from file
 		String passwordvalue = ExcelUtility.getStringData(1, 1, Constant.SHEETNAME);
-		LoginPage loginPage = new LoginPage(driver);
-		loginPage.enterusername(usernamevalue).enterPassword(passwordvalue);
-		homePage = loginPage.signIn();
-		newsPage = homePage.manageNews();
-		newsPage.newNews().newsText().saveNews();
+		apiLogin(usernamevalue, passwordvalue);//only the news pages are driven through the browser
+		newsPage = navigateTo(NewsPage.class);
+		String text = "Breaking news " + System.nanoTime();//unique, the clean-up deletes news items by their text
+		newsPage.newNews().newsText(text).saveNews();
+		TestDataTracker.register(TestDataTracker.NEWS, text);//deleted at suite end
 		boolean isalertDisplayed = newsPage.isAlertDisplayed();
 		Assert.assertTrue(isalertDisplayed, Messages.ADD_NEWS_ASSERT);
 	}
@@ -32,39 +33,35 @@ public class NewsTest extends TestNGBase{
 public void searchNews() throws IOException, InterruptedException {
 		String usernamevalue = ExcelUtility.getStringData(1, 0, Constant.SHEETNAME);//Data Driven approach: reading data from file
 		String passwordvalue = ExcelUtility.getStringData(1, 1, Constant.SHEETNAME);
-		LoginPage loginPage = new LoginPage(driver);
-		loginPage.enterusername(usernamevalue).enterPassword(passwordvalue);
-		homePage = loginPage.signIn();
-		newsPage = homePage.manageNews();
+		ApiUtility api = apiLogin(usernamevalue, passwordvalue);//only the news pages are driven through the browser
+		String seeded = "Breaking news " + System.nanoTime();//found by the "Breaking" search of NewsPage.searchText()
+		api.createNews(seeded);//registered with the TestDataTracker, deleted at suite end
+		newsPage = navigateTo(NewsPage.class);
 		newsPage.searchButton().searchText().searchNews();
 		String actual = driver.getCurrentUrl();
-		String expected = "https://groceryapp.uniqassosiates.com/admin/news/index";
+		String expected = appUrl("/admin/news/index");
 		Assert.assertEquals(actual, expected, Messages.SEARCH_NEWS_ASSERT);
 	}
 	@Test(description = "Return to home")
 public void returntoHome() throws IOException {
 		String usernamevalue = ExcelUtility.getStringData(1, 0, Constant.SHEETNAME);//Data Driven approach: reading data from file
 		String passwordvalue = ExcelUtility.getStringData(1, 1, Constant.SHEETNAME);
-		LoginPage loginPage = new LoginPage(driver);
-		loginPage.enterusername(usernamevalue).enterPassword(passwordvalue);
-		homePage = loginPage.signIn();
-		newsPage = homePage.manageNews();
+		apiLogin(usernamevalue, passwordvalue);//only the news pages are driven through the browser
+		newsPage = navigateTo(NewsPage.class);
 		homePage = newsPage.returntoHome();
 		String actual = driver.getCurrentUrl();
-		String expected = "https://groceryapp.uniqassosiates.com/admin/home";
+		String expected = appUrl("/admin/home");
 		Assert.assertEquals(actual, expected, Messages.RETURN_TO_HOME_ASSERT);
 	}
 	@Test(description = "Reset")
 	public void reset() throws IOException {
 		String usernamevalue = ExcelUtility.getStringData(1, 0, Constant.SHEETNAME);//Data Driven approach: reading data from file
 		String passwordvalue = ExcelUtility.getStringData(1, 1, Constant.SHEETNAME);
-		LoginPage loginPage = new LoginPage(driver);
-		loginPage.enterusername(usernamevalue).enterPassword(passwordvalue);
-		homePage = loginPage.signIn();
-		newsPage = homePage.manageNews();
+		apiLogin(usernamevalue, passwordvalue);//only the news pages are driven through the browser
+		newsPage = navigateTo(NewsPage.class);
 		newsPage.resetButton();
 		String actual = driver.getCurrentUrl();
-		String expected = "https://groceryapp.uniqassosiates.com/admin/list-news";
+		String expected = appUrl("/admin/list-news");
 		Assert.assertEquals(actual, expected, Messages.RESET_ASSERT);
 	}
 